@@ -0,0 +1,25 @@
+-- order_entity, order_item i order_status_change dostaja identyfikatory z sekwencji (allocationSize = 50), ktore
+-- w MySQL Hibernate trzyma w tabelach *_seq (kolumna next_val, jeden wiersz).
+-- Uruchomic jednorazowo na istniejacej bazie PRZED pierwszym startem nowej wersji (stara wersja zatrzymana).
+-- Skrypt sam zaklada tabele *_seq i ustawia je za najwyzszym zapisanym identyfikatorem - Hibernate (ddl-auto=update)
+-- korzysta z gotowych tabel. Bez tego pierwszy start zalozylby je z next_val = 1, a pierwsze inserty
+-- kolidowalyby z istniejacymi wierszami.
+-- Ponowne uruchomienie jest bezpieczne: wartosc nigdy nie jest cofana ponizej juz zapisanej w tabeli *_seq.
+CREATE TABLE IF NOT EXISTS order_entity_seq (next_val BIGINT) ENGINE=InnoDB;
+SET @next_val = GREATEST((SELECT COALESCE(MAX(id), 0) + 51 FROM order_entity),
+                         (SELECT COALESCE(MAX(next_val), 0) FROM order_entity_seq));
+DELETE FROM order_entity_seq;
+INSERT INTO order_entity_seq (next_val) VALUES (@next_val);
+
+CREATE TABLE IF NOT EXISTS order_item_seq (next_val BIGINT) ENGINE=InnoDB;
+SET @next_val = GREATEST((SELECT COALESCE(MAX(id), 0) + 51 FROM order_item),
+                         (SELECT COALESCE(MAX(next_val), 0) FROM order_item_seq));
+DELETE FROM order_item_seq;
+INSERT INTO order_item_seq (next_val) VALUES (@next_val);
+
+-- historia statusow (order_status_change) rowniez korzysta z sekwencji
+CREATE TABLE IF NOT EXISTS order_status_change_seq (next_val BIGINT) ENGINE=InnoDB;
+SET @next_val = GREATEST((SELECT COALESCE(MAX(id), 0) + 51 FROM order_status_change),
+                         (SELECT COALESCE(MAX(next_val), 0) FROM order_status_change_seq));
+DELETE FROM order_status_change_seq;
+INSERT INTO order_status_change_seq (next_val) VALUES (@next_val);
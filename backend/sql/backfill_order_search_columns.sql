@@ -0,0 +1,5 @@
+-- kolumna created_time (godzina z created_at) dla zamowien zapisanych przed jej wprowadzeniem. Filtr godzin
+-- porownuje ja wprost (bez TIME()), wiec bez uzupelnienia starsze zamowienia nie trafia do wynikow z filtrem godzin.
+-- Uruchomic jednorazowo po pierwszym starcie nowej wersji (Hibernate dodaje kolumne jako NULL i zaklada indeksy).
+-- Status i typ zamieniane sa na kody w migrate_order_status_codes.sql.
+UPDATE order_entity SET created_time = TIME(created_at) WHERE created_time IS NULL;
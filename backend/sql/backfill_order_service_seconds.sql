@@ -0,0 +1,10 @@
+-- kolumna service_seconds (pelne sekundy od created_at do finished_at) dla zamowien zrealizowanych przed jej wprowadzeniem.
+-- Statystyki z filtrem godzin sumuja ja w bazie, wiec bez uzupelnienia starsze zamowienia nie wchodza do sredniego czasu obslugi.
+-- Uruchomic jednorazowo po pierwszym starcie nowej wersji (Hibernate dodaje kolumne jako NULL).
+-- TIMESTAMPDIFF obcina ulamek sekundy tak samo jak Duration.getSeconds() w OrderEntity.computeServiceSeconds().
+UPDATE order_entity
+SET service_seconds = TIMESTAMPDIFF(SECOND, created_at, finished_at)
+WHERE service_seconds IS NULL
+  AND finished_at IS NOT NULL
+  AND created_at IS NOT NULL
+  AND finished_at >= created_at;
@@ -0,0 +1,3 @@
+-- kolumna version (optymistyczna kontrola wspolbieznosci) dla zamowien zapisanych przed jej wprowadzeniem.
+-- Uruchomic jednorazowo po pierwszym starcie nowej wersji, jesli Hibernate dodal kolumne jako NULL.
+UPDATE order_entity SET version = 0 WHERE version IS NULL;
@@ -0,0 +1,56 @@
+-- status i typ zamowien (oraz status w historii) jako kody liczbowe zamiast tekstu.
+-- Kody musza byc zgodne z OrderStatus i OrderType:
+--   status: 1 = W realizacji, 2 = Gotowe, 3 = Zrealizowane, 4 = Anulowane
+--   typ:    1 = na miejscu, 2 = na wynos
+-- Uruchomic jednorazowo PRZED pierwszym startem nowej wersji - ddl-auto=update nie zmienia typu istniejacej
+-- kolumny, a nowa wersja nie odczyta statusu zapisanego tekstem. Indeksy na tych kolumnach MySQL przebudowuje sam.
+-- Uruchamiac klientem mysql bez --force: przy nieznanej etykiecie skrypt konczy sie bledem przed jakakolwiek zmiana.
+
+-- kontrola wstepna: kazda etykieta musi miec kod. Inaczej MODIFY ... SMALLINT odrzucilby tekst albo zapisal 0,
+-- a OrderStatus.fromCode / OrderType.fromCode nie odczytalyby takiego wiersza. Nieznane wartosci trzeba najpierw
+-- poprawic recznie (np. UPDATE order_entity SET status = 'Anulowane' WHERE ...) i uruchomic skrypt ponownie.
+DROP PROCEDURE IF EXISTS check_order_status_labels;
+DELIMITER //
+CREATE PROCEDURE check_order_status_labels()
+BEGIN
+    DECLARE unknown_labels TEXT;
+    SELECT GROUP_CONCAT(DISTINCT label SEPARATOR ', ') INTO unknown_labels FROM (
+        SELECT CONCAT('order_entity.status=', COALESCE(status, 'NULL')) AS label FROM order_entity
+            WHERE status IS NULL OR LOWER(TRIM(status)) NOT IN ('w realizacji', 'gotowe', 'zrealizowane', 'anulowane')
+        UNION ALL
+        SELECT CONCAT('order_entity.type=', COALESCE(type, 'NULL')) FROM order_entity
+            WHERE type IS NULL OR LOWER(TRIM(type)) NOT IN ('na miejscu', 'na wynos')
+        UNION ALL
+        SELECT CONCAT('order_status_change.status=', COALESCE(status, 'NULL')) FROM order_status_change
+            WHERE status IS NULL OR LOWER(TRIM(status)) NOT IN ('w realizacji', 'gotowe', 'zrealizowane', 'anulowane')
+    ) unknown;
+    IF unknown_labels IS NOT NULL THEN
+        SET unknown_labels = LEFT(CONCAT('Nieznane etykiety zamowien: ', unknown_labels), 128);
+        SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = unknown_labels;
+    END IF;
+END//
+DELIMITER ;
+CALL check_order_status_labels();
+DROP PROCEDURE check_order_status_labels;
+
+UPDATE order_entity SET status = CASE LOWER(TRIM(status))
+    WHEN 'w realizacji' THEN '1'
+    WHEN 'gotowe' THEN '2'
+    WHEN 'zrealizowane' THEN '3'
+    WHEN 'anulowane' THEN '4'
+    END;
+ALTER TABLE order_entity MODIFY status SMALLINT NOT NULL;
+
+UPDATE order_entity SET type = CASE LOWER(TRIM(type))
+    WHEN 'na miejscu' THEN '1'
+    WHEN 'na wynos' THEN '2'
+    END;
+ALTER TABLE order_entity MODIFY type SMALLINT NOT NULL;
+
+UPDATE order_status_change SET status = CASE LOWER(TRIM(status))
+    WHEN 'w realizacji' THEN '1'
+    WHEN 'gotowe' THEN '2'
+    WHEN 'zrealizowane' THEN '3'
+    WHEN 'anulowane' THEN '4'
+    END;
+ALTER TABLE order_status_change MODIFY status SMALLINT NOT NULL;
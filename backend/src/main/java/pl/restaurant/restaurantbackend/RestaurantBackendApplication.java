@@ -12,6 +12,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.util.StringUtils;
 import pl.restaurant.restaurantbackend.model.MenuItem;
@@ -24,6 +25,7 @@ import pl.restaurant.restaurantbackend.repository.OrderRepository;
 import pl.restaurant.restaurantbackend.repository.UserAccountRepository;
 
 @SpringBootApplication
+@EnableScheduling
 public class RestaurantBackendApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,23 @@
+package pl.restaurant.restaurantbackend;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+// spring.threads.virtual.enabled (profil virtual-threads) na JDK ponizej 21 jest po cichu ignorowane - aplikacja
+// startowalaby na puli Tomcata z pula polaczen ustawiona pod watki wirtualne. Zamiast tego start konczy sie bledem.
+// Obraz na Java 21: docker build --build-arg JAVA_VERSION=21, lokalnie ./mvnw -Pjava21 (wymaga JDK 21).
+public class VirtualThreadsEnvironmentCheck implements EnvironmentPostProcessor {
+    static final int MIN_JAVA_VERSION = 21;
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        boolean enabled = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        int javaVersion = Runtime.version().feature();
+        if (enabled && javaVersion < MIN_JAVA_VERSION) {
+            throw new IllegalStateException("spring.threads.virtual.enabled (profil virtual-threads) wymaga Java "
+                    + MIN_JAVA_VERSION + "+, a aplikacja dziala na Java " + javaVersion
+                    + ". Uruchom obraz zbudowany z JAVA_VERSION=" + MIN_JAVA_VERSION + " albo usun profil virtual-threads.");
+        }
+    }
+}
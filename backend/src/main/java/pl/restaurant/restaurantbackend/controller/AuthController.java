@@ -9,14 +9,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import pl.restaurant.restaurantbackend.service.AuthService;
 import pl.restaurant.restaurantbackend.service.AuthService.AuthSession;
+import pl.restaurant.restaurantbackend.service.SocketTicketService;
+import pl.restaurant.restaurantbackend.service.SocketTicketService.SocketTicket;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     private final AuthService authService;
+    private final SocketTicketService socketTicketService;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, SocketTicketService socketTicketService) {
         this.authService = authService;
+        this.socketTicketService = socketTicketService;
     }
 
     @PostMapping("/login")
@@ -56,6 +60,21 @@ public class AuthController {
         }
     }
 
+    // jednorazowy bilet do /api/ws/orders - JWT nie trafia do adresu polaczenia WebSocket
+    @PostMapping("/socket-ticket")
+    public ResponseEntity<?> socketTicket(@RequestHeader(name = "Authorization", required = false) String authorization) {
+        Optional<AuthSession> session = extractSession(authorization);
+        if (session.isEmpty()) {
+            return ResponseEntity.status(401).body(new ErrorResponse("Brak autoryzacji"));
+        }
+        String role = session.get().role();
+        if (!"employee".equalsIgnoreCase(role) && !"manager".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(403).body(new ErrorResponse("Brak uprawnien"));
+        }
+        SocketTicket ticket = socketTicketService.issue(session.get());
+        return ResponseEntity.ok(new SocketTicketResponse(ticket.ticket(), ticket.expiresAt().toEpochMilli()));
+    }
+
     private Optional<AuthSession> extractSession(String authorization) {
         if (authorization == null || !authorization.startsWith("Bearer ")) {
             return Optional.empty();
@@ -66,6 +85,7 @@ public class AuthController {
 
     public record LoginRequest(String username, String password) {}
     public record AuthResponse(String token, String role, long expiresAt) {}
+    public record SocketTicketResponse(String ticket, long expiresAt) {}
     public record ChangePasswordRequest(String currentPassword, String newPassword) {}
     public record ErrorResponse(String message) {}
 }
@@ -1,54 +1,69 @@
 package pl.restaurant.restaurantbackend.controller;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.dto.OrderStatusUpdateRequest;
 import pl.restaurant.restaurantbackend.dto.OrdersPageResponse;
 import pl.restaurant.restaurantbackend.dto.order.OrderDto;
-import pl.restaurant.restaurantbackend.dto.order.mapper.OrderMapper;
-import pl.restaurant.restaurantbackend.repository.OrderRepository;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+import pl.restaurant.restaurantbackend.service.DataVersionRegistry;
 import pl.restaurant.restaurantbackend.service.OrderService;
+import pl.restaurant.restaurantbackend.service.OrderService.OrderCursor;
+import pl.restaurant.restaurantbackend.service.OrderService.OrderSlice;
+import pl.restaurant.restaurantbackend.service.OrderService.OrderVersionConflictException;
 
 @RestController
 @RequestMapping("/api/orders")
 public class EmployeeOrderController {
     private static final int DEFAULT_PAGE_SIZE = 100;
     private static final int MAX_PAGE_SIZE = 250;
+    private static final int MAX_BULK_STATUS_UPDATES = 200;
+    private static final int DEFAULT_CHANGES_LIMIT = 100;
+    private static final int MAX_CHANGES_LIMIT = 500;
 
-    @Autowired
-    private OrderRepository orderRepository;
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private DataVersionRegistry dataVersionRegistry;
+
     @GetMapping
-    public OrdersPageResponse getOrders(
+    public ResponseEntity<?> getOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String type,
-            @RequestParam(defaultValue = "true") boolean todayOnly
+            @RequestParam(defaultValue = "true") boolean todayOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         int normalizedPage = Math.max(page, 0);
         int normalizedSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
-        Pageable pageable = PageRequest.of(normalizedPage, normalizedSize);
 
         OrderSearchCriteria.Builder builder = OrderSearchCriteria.builder();
+        LocalDate today = LocalDate.now();
         if (todayOnly) {
-            LocalDate today = LocalDate.now();
             builder.dateFrom(today).dateTo(today);
         }
         if (status != null && !status.isBlank()) {
@@ -58,28 +73,72 @@ public class EmployeeOrderController {
             builder.type(type);
         }
 
-        Page<OrderDto> results = orderService.findOrders(builder.build(), pageable).map(OrderMapper::toDto);
-        return new OrdersPageResponse(
+        OrderSearchCriteria criteria = builder.build();
+        OrderCursor after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : OrderCursor.parse(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        }
+        // ETag przed zapytaniem: bez zmian w obejmowanych dniach 304 bez zapytania o liste i licznik
+        long version = todayOnly ? dataVersionRegistry.ordersVersion(today, today) : dataVersionRegistry.ordersVersion(null, null);
+        List<Object> key = cursor != null
+                ? List.of(criteria, cursor, includeTotal, normalizedSize)
+                : List.of(criteria, normalizedPage, normalizedSize);
+        String etag = dataVersionRegistry.etag("orders", version, key);
+        if (dataVersionRegistry.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        // parametr cursor (pusty = pierwsza strona) wlacza stronicowanie kursorem; page zostaje dla starszych klientow
+        if (cursor != null) {
+            OrderSlice slice = orderService.findOrderDtosAfter(criteria, after, normalizedSize, includeTotal);
+            Long total = slice.totalElements();
+            return ResponseEntity.ok().eTag(etag).body(new OrdersPageResponse(
+                    slice.orders(),
+                    total,
+                    total != null ? (int) ((total + normalizedSize - 1) / normalizedSize) : null,
+                    null,
+                    normalizedSize,
+                    slice.nextCursor()
+            ));
+        }
+        Page<OrderDto> results = orderService.findOrderDtos(criteria, PageRequest.of(normalizedPage, normalizedSize));
+        return ResponseEntity.ok().eTag(etag).body(new OrdersPageResponse(
                 results.getContent(),
                 results.getTotalElements(),
                 results.getTotalPages(),
                 results.getNumber(),
-                results.getSize()
-        );
+                results.getSize(),
+                null
+        ));
+    }
+
+    // bez "since" zwraca tylko biezacy kursor - klient pobiera go przed pelna lista, a potem odpytuje o zmiany
+    @GetMapping("/changes")
+    public OrderService.OrderChanges getOrderChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "" + DEFAULT_CHANGES_LIMIT) int limit
+    ) {
+        if (since == null) {
+            return new OrderService.OrderChanges(List.of(), orderService.currentChangeCursor());
+        }
+        return orderService.findChangesSince(since, Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT)));
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<?> updateOrderStatus(@PathVariable Long id, @RequestBody Map<String, String> request) {
+    public ResponseEntity<?> updateOrderStatus(
+            @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, String> request
+    ) {
         String status = request.get("status");
         if (status == null) {
             return ResponseEntity.badRequest().build();
         }
         try {
-            orderService.changeOrderStatus(id, status);
-            return orderRepository.findById(id)
-                    .map(OrderMapper::toDto)
-                    .map(ResponseEntity::ok)
-                    .orElse(ResponseEntity.notFound().build());
+            OrderDto order = orderService.changeOrderStatus(id, status, parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(versionTag(order.version())).body(order);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
         } catch (NoSuchElementException ex) {
@@ -87,12 +146,62 @@ public class EmployeeOrderController {
         }
     }
 
+    @PutMapping("/status")
+    public ResponseEntity<?> updateOrderStatuses(@RequestBody List<OrderStatusUpdateRequest> request) {
+        if (request != null && request.size() > MAX_BULK_STATUS_UPDATES) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Maksymalnie " + MAX_BULK_STATUS_UPDATES + " zmian statusu w jednym zadaniu."));
+        }
+        try {
+            return ResponseEntity.ok(orderService.changeOrderStatuses(request));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.status(404).body(Map.of("message", ex.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> cancelOrder(@PathVariable Long id) {
-        if (orderRepository.existsById(id)) {
-            orderService.changeOrderStatus(id, "Anulowane");
+    public ResponseEntity<?> cancelOrder(
+            @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        try {
+            orderService.changeOrderStatus(id, OrderStatus.CANCELLED.label(), parseIfMatch(ifMatch));
             return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+    }
+
+    // zmiana oparta o nieaktualna wersje (If-Match) albo przegrany wyscig dwoch stanowisk przy zapisie
+    @ExceptionHandler({OrderVersionConflictException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<Map<String, String>> handleVersionConflict(RuntimeException ex) {
+        String message = ex instanceof OrderVersionConflictException
+                ? ex.getMessage()
+                : "Zamowienie zostalo w miedzyczasie zmienione. Odswiez liste zamowien.";
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("message", message));
+    }
+
+    private Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Nieprawidlowy naglowek If-Match.");
+        }
+    }
+
+    private String versionTag(Long version) {
+        return "\"" + version + "\"";
     }
 }
@@ -0,0 +1,74 @@
+package pl.restaurant.restaurantbackend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import pl.restaurant.restaurantbackend.service.KitchenOrderBroadcaster;
+import pl.restaurant.restaurantbackend.service.KitchenOrderBroadcaster.TooManyStationsException;
+
+// /api/ws/orders - stanowisko wysyla {"type":"subscribe","statuses":[...],"types":[...]}, a w odpowiedzi dostaje
+// {"type":"subscribed"} i dalej {"type":"orders","orders":[OrderDto...]} po kazdej zmianie pasujacych zamowien
+@Component
+public class KitchenOrderSocketHandler extends TextWebSocketHandler {
+    private static final int MAX_FILTER_VALUES = 10;
+
+    private final KitchenOrderBroadcaster kitchenOrderBroadcaster;
+    private final ObjectMapper objectMapper;
+
+    public KitchenOrderSocketHandler(KitchenOrderBroadcaster kitchenOrderBroadcaster, ObjectMapper objectMapper) {
+        this.kitchenOrderBroadcaster = kitchenOrderBroadcaster;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        try {
+            kitchenOrderBroadcaster.register(session);
+        } catch (TooManyStationsException ex) {
+            // 1013 - klient wraca do odpytywania i probuje ponownie pozniej
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason("Limit polaczen"));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        try {
+            JsonNode request = objectMapper.readTree(message.getPayload());
+            if (request == null || !"subscribe".equals(request.path("type").asText())) {
+                throw new IllegalArgumentException("Nieznany typ wiadomosci.");
+            }
+            kitchenOrderBroadcaster.subscribe(session, values(request.path("statuses")), values(request.path("types")));
+        } catch (IOException | IllegalArgumentException ex) {
+            session.close(CloseStatus.BAD_DATA.withReason("Nieprawidlowa subskrypcja"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        kitchenOrderBroadcaster.unregister(session);
+    }
+
+    private Set<String> values(JsonNode node) {
+        Set<String> values = new LinkedHashSet<>();
+        if (node.isMissingNode() || node.isNull()) {
+            return values;
+        }
+        if (!node.isArray() || node.size() > MAX_FILTER_VALUES) {
+            throw new IllegalArgumentException("Nieprawidlowy filtr subskrypcji.");
+        }
+        for (JsonNode value : node) {
+            if (!value.isTextual() || value.asText().isBlank()) {
+                throw new IllegalArgumentException("Nieprawidlowy filtr subskrypcji.");
+            }
+            values.add(value.asText().trim());
+        }
+        return values;
+    }
+}
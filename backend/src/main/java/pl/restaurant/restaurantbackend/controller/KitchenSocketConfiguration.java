@@ -0,0 +1,38 @@
+package pl.restaurant.restaurantbackend.controller;
+
+import java.util.Arrays;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import pl.restaurant.restaurantbackend.security.SocketAuthInterceptor;
+
+@Configuration
+@EnableWebSocket
+public class KitchenSocketConfiguration implements WebSocketConfigurer {
+    private final KitchenOrderSocketHandler kitchenOrderSocketHandler;
+    private final SocketAuthInterceptor socketAuthInterceptor;
+    private final String[] allowedOrigins;
+
+    public KitchenSocketConfiguration(
+            KitchenOrderSocketHandler kitchenOrderSocketHandler,
+            SocketAuthInterceptor socketAuthInterceptor,
+            @Value("${app.cors.allowed-origins:http://localhost:5173}") String allowedOriginsProperty
+    ) {
+        this.kitchenOrderSocketHandler = kitchenOrderSocketHandler;
+        this.socketAuthInterceptor = socketAuthInterceptor;
+        String[] origins = Arrays.stream(allowedOriginsProperty.split(","))
+                .map(String::trim)
+                .filter(origin -> !origin.isEmpty())
+                .toArray(String[]::new);
+        this.allowedOrigins = origins.length > 0 ? origins : new String[]{"http://localhost:5173"};
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(kitchenOrderSocketHandler, "/api/ws/orders")
+                .addInterceptors(socketAuthInterceptor)
+                .setAllowedOrigins(allowedOrigins);
+    }
+}
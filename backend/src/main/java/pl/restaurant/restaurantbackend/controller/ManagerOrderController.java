@@ -1,51 +1,83 @@
 package pl.restaurant.restaurantbackend.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
 import pl.restaurant.restaurantbackend.dto.OrdersPageResponse;
+import pl.restaurant.restaurantbackend.dto.ReportJobRequest;
+import pl.restaurant.restaurantbackend.dto.ReportJobStatus;
 import pl.restaurant.restaurantbackend.dto.order.OrderDto;
-import pl.restaurant.restaurantbackend.dto.order.mapper.OrderMapper;
-import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.service.DataVersionRegistry;
+import pl.restaurant.restaurantbackend.service.OrderReportService;
+import pl.restaurant.restaurantbackend.service.OrderReportService.ReportRequest;
 import pl.restaurant.restaurantbackend.service.OrderService;
+import pl.restaurant.restaurantbackend.service.OrderService.OrderCursor;
+import pl.restaurant.restaurantbackend.service.OrderService.OrderSlice;
 import pl.restaurant.restaurantbackend.service.OrderService.ReportLimitExceededException;
+import pl.restaurant.restaurantbackend.service.ReportJobService;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportFile;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportJob;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportJobNotFoundException;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportJobNotReadyException;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportQueueFullException;
 
 @RestController
 @RequestMapping("/api/manager/orders")
 public class ManagerOrderController {
     private static final int DEFAULT_PAGE_SIZE = 50;
     private static final int MAX_PAGE_SIZE = 500;
-    private static final int MAX_REPORT_ROWS = 5000;
     private static final long MAX_REPORT_RANGE_DAYS = 31;
+    private static final String REPORT_JOBS_PATH = "/api/manager/orders/report-jobs";
 
     private final OrderService orderService;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final OrderReportService orderReportService;
+    private final ReportJobService reportJobService;
 
     @Autowired
-    public ManagerOrderController(OrderService orderService) {
+    public ManagerOrderController(
+            OrderService orderService,
+            DataVersionRegistry dataVersionRegistry,
+            OrderReportService orderReportService,
+            ReportJobService reportJobService
+    ) {
         this.orderService = orderService;
+        this.dataVersionRegistry = dataVersionRegistry;
+        this.orderReportService = orderReportService;
+        this.reportJobService = reportJobService;
     }
 
     @GetMapping
-    public OrdersPageResponse getOrders(
+    public ResponseEntity<OrdersPageResponse> getOrders(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
             @RequestParam(required = false) String timeFrom,
@@ -53,25 +85,52 @@ public class ManagerOrderController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String type,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         int normalizedPage = Math.max(page, 0);
         int normalizedSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
-        Pageable pageable = PageRequest.of(normalizedPage, normalizedSize);
 
         OrderSearchCriteria criteria = toCriteria(dateFrom, dateTo, timeFrom, timeTo, status, type);
-        Page<OrderDto> results = orderService.findOrders(criteria, pageable).map(OrderMapper::toDto);
-        return new OrdersPageResponse(
+        OrderCursor after = cursor == null || cursor.isBlank() ? null : OrderCursor.parse(cursor);
+        // historia z zamknietych dni prawie sie nie zmienia - kolejne odswiezenia koncza sie na 304 bez zapytania
+        long version = dataVersionRegistry.ordersVersion(dateFrom, dateTo);
+        List<Object> key = cursor != null
+                ? List.of(criteria, cursor, includeTotal, normalizedSize)
+                : List.of(criteria, normalizedPage, normalizedSize);
+        String etag = dataVersionRegistry.etag("orders", version, key);
+        if (dataVersionRegistry.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        // dalekie strony historii przez kursor - czas odpowiedzi nie zalezy od numeru strony ani liczby zamowien
+        if (cursor != null) {
+            OrderSlice slice = orderService.findOrderDtosAfter(criteria, after, normalizedSize, includeTotal);
+            Long total = slice.totalElements();
+            return ResponseEntity.ok().eTag(etag).body(new OrdersPageResponse(
+                    slice.orders(),
+                    total,
+                    total != null ? (int) ((total + normalizedSize - 1) / normalizedSize) : null,
+                    null,
+                    normalizedSize,
+                    slice.nextCursor()
+            ));
+        }
+        Page<OrderDto> results = orderService.findOrderDtos(criteria, PageRequest.of(normalizedPage, normalizedSize));
+        return ResponseEntity.ok().eTag(etag).body(new OrdersPageResponse(
                 results.getContent(),
                 results.getTotalElements(),
                 results.getTotalPages(),
                 results.getNumber(),
-                results.getSize()
-        );
+                results.getSize(),
+                null
+        ));
     }
 
     @GetMapping("/report")
-    public ResponseEntity<byte[]> getOrdersReport(
+    public ResponseEntity<StreamingResponseBody> getOrdersReport(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
             @RequestParam(required = false) String timeFrom,
@@ -79,37 +138,90 @@ public class ManagerOrderController {
             @RequestParam(defaultValue = "orders") String reportType,
             @RequestParam(defaultValue = "pdf") String format
     ) throws Exception {
-        DateRange normalizedRange = normalizeDateRange(dateFrom, dateTo);
-        OrderSearchCriteria criteria = toCriteria(normalizedRange.from(), normalizedRange.to(), timeFrom, timeTo, null, null);
-        List<OrderEntity> filtered = orderService.findOrders(criteria, MAX_REPORT_ROWS);
-
-        boolean stats = "stats".equalsIgnoreCase(reportType);
-        boolean csv = "csv".equalsIgnoreCase(format);
-        String dateFromStr = normalizedRange.from() != null ? normalizedRange.from().toString() : "";
-        String dateToStr = normalizedRange.to() != null ? normalizedRange.to().toString() : "";
-
-        if (csv) {
-            String filename = stats ? "statystyki.csv" : "zamowienia.csv";
-            String csvContent = stats
-                    ? orderService.generateStatsCsv(filtered, dateFromStr, dateToStr, timeFrom, timeTo)
-                    : orderService.generateOrdersCsv(filtered, dateFromStr, dateToStr, timeFrom, timeTo);
-            byte[] data = csvContent.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-            MediaType csvType = new MediaType("text", "csv", java.nio.charset.StandardCharsets.UTF_8);
+        ReportRequest request = toReportRequest(reportType, format, dateFrom, dateTo, timeFrom, timeTo);
+        if (request.streamed()) {
             return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                    .contentType(csvType)
-                    .body(data);
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + request.filename())
+                    .contentType(reportContentType(request))
+                    .body(output -> orderReportService.writeOrdersCsv(request, output, progress -> {}));
         }
+        // PDF i statystyki generowane przed odpowiedzia - przekroczony limit wierszy konczy sie 413, a nie ucietym plikiem
+        byte[] body = orderReportService.render(request, progress -> {});
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + request.filename())
+                .contentType(reportContentType(request))
+                .body(output -> output.write(body));
+    }
+
+    // ten sam raport w tle; identyczne parametry jak raport jeszcze w kolejce / w trakcie - to samo zadanie
+    @PostMapping("/report-jobs")
+    public ResponseEntity<ReportJobStatus> submitReportJob(@RequestBody ReportJobRequest body) {
+        ReportRequest request = toReportRequest(
+                body.reportType() != null ? body.reportType() : "orders",
+                body.format() != null ? body.format() : "pdf",
+                body.dateFrom(), body.dateTo(), body.timeFrom(), body.timeTo());
+        ReportJob job = reportJobService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create(REPORT_JOBS_PATH + "/" + job.id()))
+                .body(toJobStatus(job));
+    }
+
+    @GetMapping("/report-jobs/{id}")
+    public ResponseEntity<ReportJobStatus> getReportJob(@PathVariable String id) {
+        ReportJob job = reportJobService.find(id).orElseThrow(() -> new ReportJobNotFoundException(id));
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(toJobStatus(job));
+    }
 
-        String title = stats ? "Statystyki zamowien" : "Raport zamowien";
-        byte[] pdf = stats
-                ? orderService.generateStatsReport(filtered, title, dateFromStr, dateToStr, timeFrom, timeTo)
-                : orderService.generateOrdersReport(filtered, title, dateFromStr, dateToStr, timeFrom, timeTo);
-        String filename = stats ? "statystyki.pdf" : "zamowienia.pdf";
+    @GetMapping("/report-jobs/{id}/file")
+    public ResponseEntity<StreamingResponseBody> downloadReportJob(@PathVariable String id) throws IOException {
+        ReportFile file = reportJobService.open(id);
+        ReportRequest request = file.job().request();
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdf);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + request.filename())
+                .contentType(reportContentType(request))
+                .contentLength(file.size())
+                .body(output -> {
+                    try (InputStream content = file.content()) {
+                        content.transferTo(output);
+                    }
+                });
+    }
+
+    private ReportRequest toReportRequest(
+            String reportType,
+            String format,
+            LocalDate dateFrom,
+            LocalDate dateTo,
+            String timeFrom,
+            String timeTo
+    ) {
+        boolean stats = "stats".equalsIgnoreCase(reportType);
+        boolean csv = "csv".equalsIgnoreCase(format);
+        // limit dlugosci zakresu tylko dla PDF z lista zamowien (CSV jest strumieniowany, statystyki to sumy)
+        DateRange range = normalizeDateRange(dateFrom, dateTo, !stats && !csv);
+        return new ReportRequest(stats, csv, range.from(), range.to(), parseTime(timeFrom).orElse(null), parseTime(timeTo).orElse(null));
+    }
+
+    private MediaType reportContentType(ReportRequest request) {
+        return request.csv() ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_PDF;
+    }
+
+    private ReportJobStatus toJobStatus(ReportJob job) {
+        ReportRequest request = job.request();
+        boolean done = job.status() == ReportJobService.Status.DONE;
+        return new ReportJobStatus(
+                job.id(),
+                job.status().name().toLowerCase(Locale.ROOT),
+                job.progress(),
+                request.reportType(),
+                request.format(),
+                request.dateFrom(),
+                request.dateTo(),
+                job.createdAt(),
+                reportJobService.expiresAt(job),
+                done ? REPORT_JOBS_PATH + "/" + job.id() + "/file" : null,
+                job.error()
+        );
     }
 
     private OrderSearchCriteria toCriteria(
@@ -138,7 +250,8 @@ public class ManagerOrderController {
         return builder.build();
     }
 
-    private DateRange normalizeDateRange(LocalDate dateFrom, LocalDate dateTo) {
+    // bez dat - ostatnie 31 dni
+    private DateRange normalizeDateRange(LocalDate dateFrom, LocalDate dateTo, boolean limitRange) {
         LocalDate now = LocalDate.now();
         LocalDate to = dateTo != null ? dateTo : now;
         LocalDate from = dateFrom != null ? dateFrom : to.minusDays(MAX_REPORT_RANGE_DAYS - 1);
@@ -154,7 +267,7 @@ public class ManagerOrderController {
             throw new IllegalArgumentException("Data poczatkowa nie moze byc po dacie koncowej");
         }
         long rangeDays = ChronoUnit.DAYS.between(from, to);
-        if (rangeDays > (MAX_REPORT_RANGE_DAYS - 1)) {
+        if (limitRange && rangeDays > (MAX_REPORT_RANGE_DAYS - 1)) {
             throw new IllegalArgumentException(
                     "Zakres dat dla raportu moze obejmowac maksymalnie " + MAX_REPORT_RANGE_DAYS + " dni");
         }
@@ -176,8 +289,25 @@ public class ManagerOrderController {
 
     @ExceptionHandler(ReportLimitExceededException.class)
     public ResponseEntity<Map<String, String>> handleReportLimit(ReportLimitExceededException ex) {
-        String message = "Za duzy zakres raportu (ponad " + ex.getLimit() + " zamowien). Prosze zwezic filtry.";
-        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("message", message));
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("message", OrderReportService.limitMessage(ex)));
+    }
+
+    @ExceptionHandler(ReportQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleReportQueueFull(ReportQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleReportJobNotFound(ReportJobNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", ex.getMessage()));
+    }
+
+    // 409 z aktualnym statusem - klient wie, czy czekac dalej, czy pokazac blad
+    @ExceptionHandler(ReportJobNotReadyException.class)
+    public ResponseEntity<ReportJobStatus> handleReportJobNotReady(ReportJobNotReadyException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(toJobStatus(ex.getJob()));
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -1,24 +1,37 @@
 package pl.restaurant.restaurantbackend.controller;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.service.DataVersionRegistry;
 import pl.restaurant.restaurantbackend.service.MenuItemService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/menu")
 public class MenuItemController {
     private final MenuItemService menuItemService;
+    private final DataVersionRegistry dataVersionRegistry;
+    private final PreparedJsonResponses preparedJsonResponses;
 
-    public MenuItemController(MenuItemService menuItemService) {
+    public MenuItemController(
+            MenuItemService menuItemService,
+            DataVersionRegistry dataVersionRegistry,
+            PreparedJsonResponses preparedJsonResponses
+    ) {
         this.menuItemService = menuItemService;
+        this.dataVersionRegistry = dataVersionRegistry;
+        this.preparedJsonResponses = preparedJsonResponses;
     }
 
     @GetMapping
-    public List<MenuItem> getMenu() {
-        return menuItemService.getAllMenuItems();
+    public ResponseEntity<byte[]> getMenu(
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        String etag = dataVersionRegistry.etag("menu", dataVersionRegistry.menuVersion(), "public");
+        return preparedJsonResponses.respond("menu", etag, menuItemService::getAllMenuItems, ifNoneMatch, acceptEncoding);
     }
 }
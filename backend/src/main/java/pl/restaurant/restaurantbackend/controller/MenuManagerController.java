@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,36 +20,52 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import pl.restaurant.restaurantbackend.model.MenuItem;
 import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.service.DataVersionRegistry;
+import pl.restaurant.restaurantbackend.service.MenuCatalog;
 
 @RestController
 @RequestMapping("/api/manager/menu")
 public class MenuManagerController {
     private final MenuItemRepository menuItemRepository;
+    private final MenuCatalog menuCatalog;
+    private final DataVersionRegistry dataVersionRegistry;
     private final Path uploadDirectory;
 
     public MenuManagerController(
             MenuItemRepository menuItemRepository,
+            MenuCatalog menuCatalog,
+            DataVersionRegistry dataVersionRegistry,
             @Value("${app.upload.dir}") Path uploadDirectory
     ) throws IOException {
         this.menuItemRepository = menuItemRepository;
+        this.menuCatalog = menuCatalog;
+        this.dataVersionRegistry = dataVersionRegistry;
         this.uploadDirectory = uploadDirectory.toAbsolutePath().normalize();
         Files.createDirectories(this.uploadDirectory);
     }
 
     @GetMapping
-    public List<MenuItem> getAll() {
-        return menuItemRepository.findAll();
+    public ResponseEntity<List<MenuItem>> getAll(@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = dataVersionRegistry.etag("menu", dataVersionRegistry.menuVersion(), "manager");
+        if (dataVersionRegistry.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(menuItemRepository.findAll());
     }
 
     @PostMapping
     public MenuItem addMenuItem(@RequestBody MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuCatalog.refresh();
+        dataVersionRegistry.menuChanged();
+        return saved;
     }
 
     @PutMapping("/{id}")
@@ -59,13 +76,18 @@ public class MenuManagerController {
         menuItem.setId(id);
         // keep current visibility unless it is changed through the dedicated toggle endpoint
         menuItem.setActive(current.isActive());
-        return ResponseEntity.ok(menuItemRepository.save(menuItem));
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuCatalog.refresh();
+        dataVersionRegistry.menuChanged();
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMenuItem(@PathVariable Long id) {
         if (!menuItemRepository.existsById(id)) return ResponseEntity.notFound().build();
         menuItemRepository.deleteById(id);
+        menuCatalog.refresh();
+        dataVersionRegistry.menuChanged();
         return ResponseEntity.noContent().build();
     }
 
@@ -145,6 +167,8 @@ public class MenuManagerController {
         MenuItem item = itemOpt.get();
         item.setActive(!item.isActive());
         menuItemRepository.save(item);
+        menuCatalog.refresh();
+        dataVersionRegistry.menuChanged();
         return ResponseEntity.ok(item);
     }
 }
@@ -1,28 +1,72 @@
 package pl.restaurant.restaurantbackend.controller;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
 import pl.restaurant.restaurantbackend.dto.order.mapper.OrderMapper;
+import pl.restaurant.restaurantbackend.service.OrderIdempotencyService;
+import pl.restaurant.restaurantbackend.service.OrderIdempotencyService.IdempotencyConflictException;
+import pl.restaurant.restaurantbackend.service.OrderIntakePipeline;
 import pl.restaurant.restaurantbackend.service.OrderService;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
+    private static final int MAX_BATCH_SIZE = 200;
+
     @Autowired
     private OrderService orderService;
+    @Autowired
+    private OrderIntakePipeline orderIntakePipeline;
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
 
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody CreateOrderRequest request) {
+    public ResponseEntity<?> createOrder(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CreateOrderRequest request
+    ) {
         try {
-            return ResponseEntity.ok(OrderMapper.toDto(orderService.createOrder(request)));
+            OrderDto order = orderIdempotencyService.execute(idempotencyKey, request,
+                    keyRow -> orderIntakePipeline.createOrder(request, keyRow));
+            return ResponseEntity.ok(order);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
         }
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(@RequestBody List<CreateOrderRequest> requests) {
+        if (requests != null && requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Maksymalnie " + MAX_BATCH_SIZE + " zamowien w jednej paczce."));
+        }
+        try {
+            List<BatchOrderResult> results = orderService.createOrders(requests).stream()
+                    .map(result -> new BatchOrderResult(OrderMapper.toDto(result.order()), result.error()))
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        }
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("message", ex.getMessage()));
+    }
+
+    // wynik dla kazdego zamowienia z paczki, w kolejnosci z zadania; odrzucone maja tylko komunikat
+    public record BatchOrderResult(OrderDto order, String message) {}
 }
@@ -0,0 +1,121 @@
+package pl.restaurant.restaurantbackend.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+// gotowe bajty JSON (i wersja gzip) dla najczesciej czytanych publicznych list: serializacja i kompresja
+// raz na wersje danych, kolejne odczyty tylko kopiuja bufor. Wersja to ETag zrodla danych, wiec wpis
+// odswieza sie przy pierwszym odczycie po zmianie.
+@Component
+public class PreparedJsonResponses {
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, Prepared> prepared = new ConcurrentHashMap<>();
+    private final ReentrantLock prepareLock = new ReentrantLock();
+
+    public PreparedJsonResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ResponseEntity<byte[]> respond(String key, String etag, Supplier<?> body, String ifNoneMatch, String acceptEncoding) {
+        Prepared current = prepare(key, etag, body);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // osobny ETag dla wersji skompresowanej - cache posrednie nie pomyla wariantow
+        String variantEtag = gzip ? current.gzipEtag() : current.etag();
+        if (matches(ifNoneMatch, current)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(variantEtag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(variantEtag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(current.gzip());
+        }
+        return response.body(current.json());
+    }
+
+    private Prepared prepare(String key, String etag, Supplier<?> body) {
+        Prepared current = prepared.get(key);
+        if (current != null && current.etag().equals(etag)) {
+            return current;
+        }
+        prepareLock.lock();
+        try {
+            current = prepared.get(key);
+            if (current != null && current.etag().equals(etag)) {
+                return current;
+            }
+            byte[] json = objectMapper.writeValueAsBytes(body.get());
+            Prepared refreshed = new Prepared(etag, gzipEtag(etag), json, gzip(json));
+            prepared.put(key, refreshed);
+            return refreshed;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Nie mozna zserializowac odpowiedzi.", ex);
+        } finally {
+            prepareLock.unlock();
+        }
+    }
+
+    private boolean matches(String ifNoneMatch, Prepared current) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(current.etag()) || value.equals(current.gzipEtag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (GZIP.equalsIgnoreCase(tokens[0].trim())) {
+                return tokens.length < 2 || !tokens[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private String gzipEtag(String etag) {
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag + "-gzip";
+    }
+
+    private byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    private record Prepared(String etag, String gzipEtag, byte[] json, byte[] gzip) {}
+}
@@ -1,37 +1,56 @@
 package pl.restaurant.restaurantbackend.controller;
 
-import jakarta.servlet.http.HttpServletRequest;
-import java.util.List;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import pl.restaurant.restaurantbackend.dto.PublicOrderView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import pl.restaurant.restaurantbackend.service.OrderService;
+import pl.restaurant.restaurantbackend.service.PublicOrderEventBroadcaster;
 
 @RestController
 @RequestMapping("/api/public/orders")
 public class PublicOrderController {
     private final OrderService orderService;
+    private final PublicOrderEventBroadcaster eventBroadcaster;
+    private final PreparedJsonResponses preparedJsonResponses;
 
-    public PublicOrderController(OrderService orderService) {
+    public PublicOrderController(
+            OrderService orderService,
+            PublicOrderEventBroadcaster eventBroadcaster,
+            PreparedJsonResponses preparedJsonResponses
+    ) {
         this.orderService = orderService;
+        this.eventBroadcaster = eventBroadcaster;
+        this.preparedJsonResponses = preparedJsonResponses;
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<PublicOrderView>> getActiveOrders(HttpServletRequest request) {
+    public ResponseEntity<byte[]> getActiveOrders(
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
         OrderService.ActiveOrdersSnapshot snapshot = orderService.getActiveOrdersSnapshot();
-        String currentEtag = snapshot.etag();
-        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
-        if (currentEtag != null && currentEtag.equals(ifNoneMatch)) {
-            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
-                    .eTag(currentEtag)
-                    .build();
-        }
-        return ResponseEntity.ok()
-                .eTag(currentEtag)
-                .body(snapshot.orders());
+        return preparedJsonResponses.respond("active-orders", snapshot.etag(), snapshot::orders, ifNoneMatch, acceptEncoding);
+    }
+
+    // zdarzenie "snapshot" z pelna lista na starcie, potem "orders" ze zmienionymi zamowieniami;
+    // EventSource po zerwaniu sam wraca z naglowkiem Last-Event-ID i dostaje tylko pominiete zmiany
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActiveOrders(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return eventBroadcaster.subscribe(lastEventId);
+    }
+
+    // bez tresci - klient zada text/event-stream, a EventSource i tak jej nie odczyta; ekran przechodzi na odpytywanie /active
+    @ExceptionHandler(PublicOrderEventBroadcaster.TooManySubscribersException.class)
+    public ResponseEntity<Void> handleTooManySubscribers() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .build();
     }
 }
@@ -0,0 +1,7 @@
+package pl.restaurant.restaurantbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+// version (opcjonalnie) - zmiana zostanie odrzucona, jesli zamowienie zmienilo sie od tej wersji
+public record OrderStatusUpdateRequest(Long id, String status, Long version) {}
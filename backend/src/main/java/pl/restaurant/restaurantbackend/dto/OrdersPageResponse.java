@@ -3,10 +3,12 @@ package pl.restaurant.restaurantbackend.dto;
 import java.util.List;
 import pl.restaurant.restaurantbackend.dto.order.OrderDto;
 
+// przy stronicowaniu kursorem page jest puste, a totalElements/totalPages tylko gdy klient poprosil o licznik
 public record OrdersPageResponse(
         List<OrderDto> orders,
-        long totalElements,
-        int totalPages,
-        int page,
-        int size
+        Long totalElements,
+        Integer totalPages,
+        Integer page,
+        int size,
+        String nextCursor
 ) {}
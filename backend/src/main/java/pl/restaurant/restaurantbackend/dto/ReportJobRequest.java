@@ -0,0 +1,15 @@
+package pl.restaurant.restaurantbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.LocalDate;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+// te same parametry co GET /api/manager/orders/report: reportType orders|stats, format pdf|csv, godziny HH:mm
+public record ReportJobRequest(
+        String reportType,
+        String format,
+        LocalDate dateFrom,
+        LocalDate dateTo,
+        String timeFrom,
+        String timeTo
+) {}
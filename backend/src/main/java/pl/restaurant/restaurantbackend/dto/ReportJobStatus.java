@@ -0,0 +1,19 @@
+package pl.restaurant.restaurantbackend.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+// status queued|running|done|failed, progress 0-100; downloadUrl tylko dla gotowego raportu, message tylko po bledzie
+public record ReportJobStatus(
+        String id,
+        String status,
+        int progress,
+        String reportType,
+        String format,
+        LocalDate dateFrom,
+        LocalDate dateTo,
+        Instant createdAt,
+        Instant expiresAt,
+        String downloadUrl,
+        String message
+) {}
@@ -13,5 +13,6 @@ public record OrderDto(
         String status,
         LocalDateTime finishedAt,
         List<OrderItemDto> items,
-        List<OrderStatusChangeDto> statusHistory
+        List<OrderStatusChangeDto> statusHistory,
+        Long version
 ) {}
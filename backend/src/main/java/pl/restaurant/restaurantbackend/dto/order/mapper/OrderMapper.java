@@ -25,7 +25,8 @@ public final class OrderMapper {
                 entity.getStatus(),
                 entity.getFinishedAt(),
                 toItemDtos(entity.getItems()),
-                toStatusHistoryDtos(entity.getStatusHistory())
+                toStatusHistoryDtos(entity.getStatusHistory()),
+                entity.getVersion()
         );
     }
 
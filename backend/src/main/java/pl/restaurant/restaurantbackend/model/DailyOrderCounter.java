@@ -43,5 +43,11 @@ public class DailyOrderCounter {
         this.lastNumber = (this.lastNumber == null ? 1L : this.lastNumber + 1);
         return this.lastNumber;
     }
+
+    public Long reserve(long count) {
+        long first = (this.lastNumber == null ? 0L : this.lastNumber) + 1;
+        this.lastNumber = first + count - 1;
+        return first;
+    }
 }
 
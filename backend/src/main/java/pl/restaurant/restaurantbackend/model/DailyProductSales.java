@@ -0,0 +1,90 @@
+package pl.restaurant.restaurantbackend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// sprzedana ilosc produktu (po nazwie pozycji zamowienia) w danym dniu - do "Najczesciej kupowany produkt"
+@Entity
+@Table(name = "daily_product_sales")
+@IdClass(DailyProductSales.Key.class)
+public class DailyProductSales {
+    @Id
+    @Column(name = "order_date", nullable = false)
+    private LocalDate orderDate;
+
+    @Id
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(name = "quantity", nullable = false)
+    private long quantity;
+
+    public DailyProductSales() {}
+
+    public DailyProductSales(LocalDate orderDate, String productName) {
+        this.orderDate = orderDate;
+        this.productName = productName;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public void addQuantity(long quantity) {
+        this.quantity += quantity;
+    }
+
+    public static class Key implements Serializable {
+        private LocalDate orderDate;
+        private String productName;
+
+        public Key() {}
+
+        public Key(LocalDate orderDate, String productName) {
+            this.orderDate = orderDate;
+            this.productName = productName;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(orderDate, key.orderDate) && Objects.equals(productName, key.productName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(orderDate, productName);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pl.restaurant.restaurantbackend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+
+// sumy sprzedazy jednego dnia (po order_date) dla raportu statystyk - utrzymywane przez DailySalesRollup
+@Entity
+@Table(name = "daily_sales_summary")
+public class DailySalesSummary {
+    @Id
+    @Column(name = "order_date", nullable = false, unique = true)
+    private LocalDate orderDate;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "revenue", nullable = false)
+    private double revenue;
+
+    // czas obslugi tylko zamowien zrealizowanych: liczba i suma sekund createdAt -> finishedAt
+    @Column(name = "service_count", nullable = false)
+    private long serviceCount;
+
+    @Column(name = "service_seconds", nullable = false)
+    private long serviceSeconds;
+
+    public DailySalesSummary() {}
+
+    public DailySalesSummary(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getServiceCount() {
+        return serviceCount;
+    }
+
+    public void setServiceCount(long serviceCount) {
+        this.serviceCount = serviceCount;
+    }
+
+    public long getServiceSeconds() {
+        return serviceSeconds;
+    }
+
+    public void setServiceSeconds(long serviceSeconds) {
+        this.serviceSeconds = serviceSeconds;
+    }
+
+    public void add(long orders, double revenue, long serviceCount, long serviceSeconds) {
+        this.orderCount += orders;
+        this.revenue += revenue;
+        this.serviceCount += serviceCount;
+        this.serviceSeconds += serviceSeconds;
+    }
+}
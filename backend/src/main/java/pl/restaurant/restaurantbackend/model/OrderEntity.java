@@ -1,20 +1,33 @@
 package pl.restaurant.restaurantbackend.model;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.BatchSize;
+import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 
 @Entity
 @Table(
     name = "order_entity",
-    uniqueConstraints = @UniqueConstraint(name = "uk_order_date_number", columnNames = {"order_date", "order_number"})
+    uniqueConstraints = @UniqueConstraint(name = "uk_order_date_number", columnNames = {"order_date", "order_number"}),
+    indexes = {
+        @Index(name = "idx_order_change_seq", columnList = "change_seq"),
+        // ekran aktywnych zamowien: status IN (...) posortowane po dniu i numerze
+        @Index(name = "idx_order_status_date_number", columnList = "status, order_date, order_number"),
+        // raporty: dzien (zakres dni) i przedzial godzin
+        @Index(name = "idx_order_date_created_time", columnList = "order_date, created_time")
+    }
 )
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class OrderEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // sekwencja zamiast IDENTITY, zeby Hibernate mogl wysylac inserty paczkami (JDBC batching)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_entity_seq")
+    @SequenceGenerator(name = "order_entity_seq", sequenceName = "order_entity_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", nullable = false)
@@ -26,13 +39,19 @@ public class OrderEntity {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "created_time")
+    // godzina z createdAt trzymana osobno, zeby filtr godzin porownywal kolumne z indeksu zamiast TIME(created_at)
+    private LocalTime createdTime;
+
     @Column(nullable = false)
-    // order type: "na miejscu" (dine-in) lub "na wynos" (take-out)
-    private String type;
+    @Convert(converter = OrderTypeConverter.class)
+    // kod typu (OrderType): 1 = "na miejscu", 2 = "na wynos"
+    private OrderType type;
 
     @Column(nullable = false)
-    // status values: W realizacji, Gotowe, Zrealizowane, Anulowane
-    private String status;
+    @Convert(converter = OrderStatusConverter.class)
+    // kod statusu (OrderStatus): W realizacji, Gotowe, Zrealizowane, Anulowane
+    private OrderStatus status;
 
     // nie dodajemy tutaj JsonManagedReference, bo powoduje zapetlone mapowanie
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
@@ -41,12 +60,31 @@ public class OrderEntity {
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @com.fasterxml.jackson.annotation.JsonManagedReference
-    private List<OrderStatusChange> statusHistory;
+    // historia kilku zamowien (zmiana zbiorcza) doczytywana jednym zapytaniem zamiast po jednym na zamowienie
+    @BatchSize(size = 50)
+    private List<OrderStatusChange> statusHistory = new ArrayList<>();
 
     @Column
     // moment zakonczenia zamowienia (wykorzystywany przy statusie Zrealizowane)
     private LocalDateTime finishedAt;
 
+    @Column(name = "service_seconds")
+    // czas obslugi (createdAt -> finishedAt) w pelnych sekundach, zeby statystyki sumowala baza bez arytmetyki dat
+    private Long serviceSeconds;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    // wersja do optymistycznej kontroli wspolbieznosci (ETag / If-Match przy zmianie statusu)
+    private Long version;
+
+    @Column(name = "change_seq")
+    // numer ostatniej zmiany (utworzenie, zmiana statusu) - kursor dla GET /api/orders/changes
+    private Long changeSeq;
+
+    @Column(name = "menu_version")
+    // wersja migawki menu (MenuCatalog), wedlug ktorej wyceniono pozycje
+    private Long menuVersion;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public Long getOrderNumber() { return orderNumber; }
@@ -55,14 +93,51 @@ public class OrderEntity {
     public void setOrderDate(LocalDate orderDate) { this.orderDate = orderDate; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
-    public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    // etykiety ("Gotowe", "na wynos") dla API, raportow i dziennika; w bazie zapisywany jest kod
+    public String getType() { return type != null ? type.label() : null; }
+    public void setType(String type) { this.type = type != null ? OrderType.fromLabel(type) : null; }
+    public String getStatus() { return status != null ? status.label() : null; }
+    public void setStatus(String status) { this.status = status != null ? OrderStatus.fromLabel(status) : null; }
+    @JsonIgnore
+    public OrderType getOrderType() { return type; }
+    public void setOrderType(OrderType type) { this.type = type; }
+    @JsonIgnore
+    public OrderStatus getOrderStatus() { return status; }
+    public void setOrderStatus(OrderStatus status) { this.status = status; }
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) { this.items = items; }
     public List<OrderStatusChange> getStatusHistory() { return statusHistory; }
     public void setStatusHistory(List<OrderStatusChange> statusHistory) { this.statusHistory = statusHistory; }
+    public void addStatusChange(OrderStatusChange change) {
+        change.setOrder(this);
+        if (statusHistory == null) {
+            statusHistory = new ArrayList<>();
+        }
+        statusHistory.add(change);
+    }
     public LocalDateTime getFinishedAt() { return finishedAt; }
     public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+    public Long getMenuVersion() { return menuVersion; }
+    public void setMenuVersion(Long menuVersion) { this.menuVersion = menuVersion; }
+    public LocalTime getCreatedTime() { return createdTime; }
+    public Long getServiceSeconds() { return serviceSeconds; }
+
+    // pelne sekundy jak Duration.getSeconds(); null bez finishedAt albo gdy finishedAt jest przed createdAt
+    public Long computeServiceSeconds() {
+        if (createdAt == null || finishedAt == null || finishedAt.isBefore(createdAt)) {
+            return null;
+        }
+        return java.time.Duration.between(createdAt, finishedAt).getSeconds();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void fillDerivedColumns() {
+        createdTime = createdAt != null ? createdAt.toLocalTime() : null;
+        serviceSeconds = computeServiceSeconds();
+    }
 }
@@ -0,0 +1,46 @@
+package pl.restaurant.restaurantbackend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_idempotency_key")
+public class OrderIdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key", nullable = false, length = 128)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    // SHA-256 tresci zadania - ten sam klucz z innym koszykiem jest odrzucany
+    private String requestHash;
+
+    @Lob
+    @Column(name = "response", nullable = false)
+    // OrderDto zwrocone przy pierwszym wywolaniu (JSON)
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OrderIdempotencyKey() {}
+
+    public OrderIdempotencyKey(String idempotencyKey, String requestHash, String response, LocalDateTime createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.response = response;
+        this.createdAt = createdAt;
+    }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    public String getResponse() { return response; }
+    public void setResponse(String response) { this.response = response; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
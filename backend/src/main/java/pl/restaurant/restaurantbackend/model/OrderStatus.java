@@ -0,0 +1,47 @@
+package pl.restaurant.restaurantbackend.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// status zamowienia zapisywany w bazie jako kod liczbowy (OrderStatusConverter); API i raporty uzywaja etykiety
+public enum OrderStatus {
+    IN_PROGRESS((short) 1, "W realizacji"),
+    READY((short) 2, "Gotowe"),
+    COMPLETED((short) 3, "Zrealizowane"),
+    CANCELLED((short) 4, "Anulowane");
+
+    private final short code;
+    private final String label;
+
+    OrderStatus(short code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static Optional<OrderStatus> find(String label) {
+        if (label == null) {
+            return Optional.empty();
+        }
+        String trimmed = label.trim();
+        return Arrays.stream(values()).filter(status -> status.label.equalsIgnoreCase(trimmed)).findFirst();
+    }
+
+    public static OrderStatus fromLabel(String label) {
+        return find(label).orElseThrow(() -> new IllegalArgumentException("Nieznany status zamowienia: " + label));
+    }
+
+    public static OrderStatus fromCode(short code) {
+        return Arrays.stream(values())
+                .filter(status -> status.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Nieznany kod statusu zamowienia: " + code));
+    }
+}
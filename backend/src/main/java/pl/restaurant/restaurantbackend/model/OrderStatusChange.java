@@ -1,13 +1,16 @@
 package pl.restaurant.restaurantbackend.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 public class OrderStatusChange {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // sekwencja zamiast IDENTITY, zeby wpisy historii ze zmiany zbiorczej szly jednym batchem
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_status_change_seq")
+    @SequenceGenerator(name = "order_status_change_seq", sequenceName = "order_status_change_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -16,7 +19,8 @@ public class OrderStatusChange {
     private OrderEntity order;
 
     @Column(nullable = false)
-    private String status;
+    @Convert(converter = OrderStatusConverter.class)
+    private OrderStatus status;
 
     @Column(nullable = false)
     private LocalDateTime changedAt;
@@ -25,8 +29,11 @@ public class OrderStatusChange {
     public void setId(Long id) { this.id = id; }
     public OrderEntity getOrder() { return order; }
     public void setOrder(OrderEntity order) { this.order = order; }
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public String getStatus() { return status != null ? status.label() : null; }
+    public void setStatus(String status) { this.status = status != null ? OrderStatus.fromLabel(status) : null; }
+    @JsonIgnore
+    public OrderStatus getOrderStatus() { return status; }
+    public void setOrderStatus(OrderStatus status) { this.status = status; }
     public LocalDateTime getChangedAt() { return changedAt; }
     public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
 }
@@ -0,0 +1,17 @@
+package pl.restaurant.restaurantbackend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class OrderStatusConverter implements AttributeConverter<OrderStatus, Short> {
+    @Override
+    public Short convertToDatabaseColumn(OrderStatus status) {
+        return status != null ? status.code() : null;
+    }
+
+    @Override
+    public OrderStatus convertToEntityAttribute(Short code) {
+        return code != null ? OrderStatus.fromCode(code) : null;
+    }
+}
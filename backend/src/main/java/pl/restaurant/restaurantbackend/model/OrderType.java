@@ -0,0 +1,45 @@
+package pl.restaurant.restaurantbackend.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// typ zamowienia zapisywany w bazie jako kod liczbowy (OrderTypeConverter); API i raporty uzywaja etykiety
+public enum OrderType {
+    DINE_IN((short) 1, "na miejscu"),
+    TAKEAWAY((short) 2, "na wynos");
+
+    private final short code;
+    private final String label;
+
+    OrderType(short code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static Optional<OrderType> find(String label) {
+        if (label == null) {
+            return Optional.empty();
+        }
+        String trimmed = label.trim();
+        return Arrays.stream(values()).filter(type -> type.label.equalsIgnoreCase(trimmed)).findFirst();
+    }
+
+    public static OrderType fromLabel(String label) {
+        return find(label).orElseThrow(() -> new IllegalArgumentException("Nieznany typ zamowienia: " + label));
+    }
+
+    public static OrderType fromCode(short code) {
+        return Arrays.stream(values())
+                .filter(type -> type.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Nieznany kod typu zamowienia: " + code));
+    }
+}
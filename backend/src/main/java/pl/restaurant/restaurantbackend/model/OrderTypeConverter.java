@@ -0,0 +1,17 @@
+package pl.restaurant.restaurantbackend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class OrderTypeConverter implements AttributeConverter<OrderType, Short> {
+    @Override
+    public Short convertToDatabaseColumn(OrderType type) {
+        return type != null ? type.code() : null;
+    }
+
+    @Override
+    public OrderType convertToEntityAttribute(Short code) {
+        return code != null ? OrderType.fromCode(code) : null;
+    }
+}
@@ -0,0 +1,27 @@
+package pl.restaurant.restaurantbackend.repository;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.restaurant.restaurantbackend.model.DailyProductSales;
+
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, DailyProductSales.Key> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyProductSales> findByOrderDateAndProductNameIn(LocalDate orderDate, Collection<String> productNames);
+
+    // przy remisie nazwa alfabetycznie - ten sam wybor co przy liczeniu z listy zamowien
+    @Query("select p.productName from DailyProductSales p where p.orderDate between :from and :to "
+            + "group by p.productName order by sum(p.quantity) desc, p.productName")
+    List<String> findTopProductNames(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Modifying
+    @Query("delete from DailyProductSales p where p.orderDate between :from and :to")
+    void deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
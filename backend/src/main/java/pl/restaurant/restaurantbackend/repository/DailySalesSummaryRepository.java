@@ -0,0 +1,41 @@
+package pl.restaurant.restaurantbackend.repository;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.restaurant.restaurantbackend.model.DailySalesSummary;
+
+public interface DailySalesSummaryRepository extends JpaRepository<DailySalesSummary, LocalDate> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<DailySalesSummary> findByOrderDate(LocalDate orderDate);
+
+    // blokada dni na czas odbudowy rollupu (DailySalesRollup) - przyrosty tych dni czekaja na jej koniec
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailySalesSummary> findByOrderDateBetween(LocalDate from, LocalDate to);
+
+    @Query("select min(s.orderDate) from DailySalesSummary s")
+    LocalDate findFirstOrderDate();
+
+    @Query("select coalesce(sum(s.orderCount), 0L) as orders, coalesce(sum(s.revenue), 0.0) as revenue, "
+            + "coalesce(sum(s.serviceCount), 0L) as serviceCount, coalesce(sum(s.serviceSeconds), 0L) as serviceSeconds "
+            + "from DailySalesSummary s where s.orderDate between :from and :to")
+    SalesTotals sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // czysci kontekst - wiersze zablokowane przed odbudowa nie moga zostac jako zarzadzane obok nowych o tym samym kluczu
+    @Modifying(clearAutomatically = true)
+    @Query("delete from DailySalesSummary s where s.orderDate between :from and :to")
+    void deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    interface SalesTotals {
+        Long getOrders();
+        Double getRevenue();
+        Long getServiceCount();
+        Long getServiceSeconds();
+    }
+}
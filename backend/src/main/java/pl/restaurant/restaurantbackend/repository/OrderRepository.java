@@ -1,12 +1,50 @@
 package pl.restaurant.restaurantbackend.repository;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
 
-public interface OrderRepository extends JpaRepository<OrderEntity, Long>, JpaSpecificationExecutor<OrderEntity> {
-    List<OrderEntity> findByStatusIn(Collection<String> statuses, Sort sort);
+public interface OrderRepository extends JpaRepository<OrderEntity, Long>, JpaSpecificationExecutor<OrderEntity>, OrderStatsRepository {
+    List<OrderEntity> findByStatusIn(Collection<OrderStatus> statuses, Sort sort);
+
+    @EntityGraph(attributePaths = "items")
+    Optional<OrderEntity> findWithItemsById(Long id);
+
+    @EntityGraph(attributePaths = "items")
+    List<OrderEntity> findWithItemsByIdIn(Collection<Long> ids);
+
+    // osobno od pozycji - dwie kolekcje typu List w jednym fetch join daja MultipleBagFetchException
+    @EntityGraph(attributePaths = "statusHistory")
+    List<OrderEntity> findWithStatusHistoryByIdIn(Collection<Long> ids);
+
+    @Query("select min(o.orderDate) from OrderEntity o")
+    LocalDate findFirstOrderDate();
+
+    @Query("select coalesce(max(o.orderNumber), 0L) from OrderEntity o where o.orderDate = :orderDate")
+    long findMaxOrderNumber(@Param("orderDate") LocalDate orderDate);
+
+    @Query("select coalesce(max(o.changeSeq), 0L) from OrderEntity o")
+    long findMaxChangeSeq();
+
+    @Query("select o.id as id, o.changeSeq as changeSeq from OrderEntity o "
+            + "where o.changeSeq > :since and o.changeSeq <= :upTo order by o.changeSeq")
+    List<OrderChangeRef> findChanges(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    interface OrderChangeRef {
+        Long getId();
+        Long getChangeSeq();
+    }
+
+    @Query("select o.orderNumber from OrderEntity o where o.orderDate = :orderDate and o.orderNumber in :orderNumbers")
+    List<Long> findExistingOrderNumbers(@Param("orderDate") LocalDate orderDate, @Param("orderNumbers") Collection<Long> orderNumbers);
 }
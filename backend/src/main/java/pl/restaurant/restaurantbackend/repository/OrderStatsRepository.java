@@ -0,0 +1,16 @@
+package pl.restaurant.restaurantbackend.repository;
+
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+
+// statystyki zamowien liczone w bazie (COUNT/SUM/GROUP BY) dla tych samych filtrow co lista zamowien;
+// implementacja w OrderStatsRepositoryImpl, dostepna przez OrderRepository
+public interface OrderStatsRepository {
+    SalesAggregate aggregateSales(Specification<OrderEntity> spec, int topProducts);
+
+    // serviceCount/serviceSeconds - zamowienia z wypelnionym service_seconds (zrealizowane)
+    record SalesAggregate(long orders, double revenue, List<ProductTotal> topProducts, long serviceCount, long serviceSeconds) {}
+
+    record ProductTotal(String name, long quantity) {}
+}
@@ -0,0 +1,66 @@
+package pl.restaurant.restaurantbackend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderItem;
+
+// trzy zapytania niezaleznie od liczby zamowien: liczniki z order_entity, suma wartosci pozycji i ranking produktow;
+// pozycje nie sa ladowane do pamieci
+class OrderStatsRepositoryImpl implements OrderStatsRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public SalesAggregate aggregateSales(Specification<OrderEntity> spec, int topProducts) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> totals = cb.createTupleQuery();
+        Root<OrderEntity> order = totals.from(OrderEntity.class);
+        totals.multiselect(
+                cb.count(order),
+                cb.count(order.<Long>get("serviceSeconds")),
+                cb.coalesce(cb.sum(order.<Long>get("serviceSeconds")), 0L));
+        totals.where(spec.toPredicate(order, totals, cb));
+        Tuple totalsRow = entityManager.createQuery(totals).getSingleResult();
+
+        // suma po pozycjach, nie po produktach z rankingu - ranking jest obciety do topProducts
+        CriteriaQuery<Number> revenue = cb.createQuery(Number.class);
+        Root<OrderEntity> revenueOrder = revenue.from(OrderEntity.class);
+        Join<OrderEntity, OrderItem> revenueItem = revenueOrder.join("items");
+        revenue.select(cb.sum(cb.prod(revenueItem.<Double>get("price"), revenueItem.<Integer>get("quantity"))));
+        revenue.where(spec.toPredicate(revenueOrder, revenue, cb));
+        Number revenueValue = entityManager.createQuery(revenue).getSingleResult();
+
+        // przy remisie nazwa alfabetycznie, jak przy liczeniu z listy zamowien (SalesTally)
+        CriteriaQuery<Tuple> products = cb.createTupleQuery();
+        Root<OrderEntity> productOrder = products.from(OrderEntity.class);
+        Join<OrderEntity, OrderItem> productItem = productOrder.join("items");
+        Expression<Long> quantity = cb.sumAsLong(productItem.<Integer>get("quantity"));
+        products.multiselect(productItem.get("name"), quantity);
+        products.where(spec.toPredicate(productOrder, products, cb));
+        products.groupBy(productItem.get("name"));
+        products.orderBy(cb.desc(quantity), cb.asc(productItem.get("name")));
+        List<ProductTotal> top = entityManager.createQuery(products)
+                .setMaxResults(Math.max(1, topProducts))
+                .getResultList()
+                .stream()
+                .map(row -> new ProductTotal(row.get(0, String.class), row.get(1, Long.class)))
+                .toList();
+
+        return new SalesAggregate(
+                totalsRow.get(0, Long.class),
+                revenueValue != null ? revenueValue.doubleValue() : 0.0,
+                top,
+                totalsRow.get(1, Long.class),
+                totalsRow.get(2, Long.class));
+    }
+}
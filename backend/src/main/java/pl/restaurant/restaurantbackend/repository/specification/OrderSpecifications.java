@@ -1,12 +1,13 @@
 package pl.restaurant.restaurantbackend.repository.specification;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.data.jpa.domain.Specification;
 import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
 import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+import pl.restaurant.restaurantbackend.model.OrderType;
 
 public final class OrderSpecifications {
 
@@ -24,31 +25,40 @@ public final class OrderSpecifications {
                     predicates.add(cb.lessThanOrEqualTo(root.get("orderDate"), dateTo))
             );
 
-            criteria.status().map(String::toLowerCase).ifPresent(status ->
-                    predicates.add(cb.equal(cb.lower(root.get("status")), status))
+            // kolumny bez funkcji, zeby baza mogla uzyc indeksow; status i typ to kody liczbowe, a nieznana
+            // etykieta nie pasuje do zadnego zamowienia
+            criteria.status().ifPresent(status -> predicates.add(OrderStatus.find(status)
+                    .map(value -> cb.equal(root.get("status"), value))
+                    .orElseGet(cb::disjunction))
             );
 
-            criteria.type().map(String::toLowerCase).ifPresent(type ->
-                    predicates.add(cb.equal(cb.lower(root.get("type")), type))
+            criteria.type().ifPresent(type -> predicates.add(OrderType.find(type)
+                    .map(value -> cb.equal(root.get("type"), value))
+                    .orElseGet(cb::disjunction))
             );
 
             criteria.timeFrom().ifPresent(timeFrom ->
-                    predicates.add(cb.greaterThanOrEqualTo(timeExpression(root.get("createdAt"), cb), timeFrom))
+                    predicates.add(cb.greaterThanOrEqualTo(root.get("createdTime"), timeFrom))
             );
 
             criteria.timeTo().ifPresent(timeTo ->
-                    predicates.add(cb.lessThanOrEqualTo(timeExpression(root.get("createdAt"), cb), timeTo))
+                    predicates.add(cb.lessThanOrEqualTo(root.get("createdTime"), timeTo))
             );
 
             return cb.and(predicates.toArray(jakarta.persistence.criteria.Predicate[]::new));
         };
     }
 
-    private static jakarta.persistence.criteria.Expression<LocalTime> timeExpression(
-            jakarta.persistence.criteria.Path<?> path,
-            jakarta.persistence.criteria.CriteriaBuilder cb
-    ) {
-        return cb.function("TIME", LocalTime.class, path);
+    // warunek "seek" dla sortowania (orderDate DESC, orderNumber DESC); para jest unikalna (uk_order_date_number),
+    // wiec zadne zamowienie nie zostanie pominiete ani powtorzone na granicy stron
+    public static Specification<OrderEntity> before(LocalDate orderDate, long orderNumber) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("orderDate"), orderDate),
+                cb.and(
+                        cb.equal(root.get("orderDate"), orderDate),
+                        cb.lessThan(root.get("orderNumber"), orderNumber)
+                )
+        );
     }
 }
 
@@ -33,6 +33,11 @@ public class AuthInterceptor implements HandlerInterceptor {
             return verifyRole(response, extractToken(request), "manager");
         }
 
+        if (path.startsWith("/api/orders/batch")) {
+            // paczka do 200 zamowien z jednym zakresem numerow - tylko dla obslugi, nie anonimowo jak pojedyncze zamowienie
+            return verifyAnyRole(response, extractToken(request), new String[]{"employee", "manager"});
+        }
+
         if (path.startsWith("/api/orders") && "GET".equalsIgnoreCase(method)) {
             return verifyAnyRole(response, extractToken(request), new String[]{"employee", "manager"});
         }
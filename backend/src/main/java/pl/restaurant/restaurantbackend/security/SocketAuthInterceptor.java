@@ -0,0 +1,53 @@
+package pl.restaurant.restaurantbackend.security;
+
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import pl.restaurant.restaurantbackend.service.AuthService.AuthSession;
+import pl.restaurant.restaurantbackend.service.KitchenOrderBroadcaster;
+import pl.restaurant.restaurantbackend.service.SocketTicketService;
+
+// przegladarka nie ustawi naglowka Authorization dla WebSocket, wiec w parametrze "ticket" przychodzi jednorazowy
+// bilet z POST /api/auth/socket-ticket (nie JWT). Waznosc tokenu trafia do atrybutow sesji - po niej
+// KitchenOrderBroadcaster zamyka polaczenie.
+@Component
+public class SocketAuthInterceptor implements HandshakeInterceptor {
+    private final SocketTicketService socketTicketService;
+
+    public SocketAuthInterceptor(SocketTicketService socketTicketService) {
+        this.socketTicketService = socketTicketService;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String ticket = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("ticket");
+        if (ticket == null || ticket.isBlank()) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        Optional<AuthSession> session = socketTicketService.redeem(ticket);
+        if (session.isEmpty()) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+        String role = session.get().role();
+        if (!"employee".equalsIgnoreCase(role) && !"manager".equalsIgnoreCase(role)) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+        attributes.put(KitchenOrderBroadcaster.AUTH_EXPIRES_AT_ATTRIBUTE, session.get().expiresAt());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
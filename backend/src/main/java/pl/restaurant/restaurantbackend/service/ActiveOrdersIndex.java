@@ -0,0 +1,171 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.restaurant.restaurantbackend.dto.PublicOrderView;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// zamowienia "W realizacji"/"Gotowe" w pamieci, posortowane po (orderDate, orderNumber) jak ekran publiczny.
+// Baza jest czytana tylko przy starcie; pozniej indeks aktualizuja zdarzenia OrderChangedEvent po commicie.
+// ETag to numer wersji indeksu (z epoka procesu), wiec 304 nie wymaga liczenia skrotu z listy.
+// Zapisy z pominieciem OrderService (np. recznie w bazie) sa widoczne dopiero po restarcie albo rebuild().
+@Component
+public class ActiveOrdersIndex implements SmartInitializingSingleton {
+    static final List<OrderStatus> TRACKED_STATUSES = List.of(OrderStatus.IN_PROGRESS, OrderStatus.READY);
+    // usuniete zamowienia pamietane chwile dluzej - spoznione starsze zdarzenie nie przywroci ich na ekran
+    private static final int REMOVED_HISTORY = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<OrderKey, Entry> orders = new ConcurrentSkipListMap<>();
+    private final Map<Long, OrderKey> keysById = new HashMap<>();
+    private final Map<Long, Long> removedChangeSeq = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > REMOVED_HISTORY;
+        }
+    };
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean initialized;
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of());
+
+    public ActiveOrdersIndex(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    // po utworzeniu wszystkich beanow (takze po odtworzeniu dziennika zamowien), przed startem serwera HTTP
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // runnery startowe (dane przykladowe) zapisuja przez repozytoria z pominieciem OrderService - po nich jeszcze raz z bazy
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            orders.clear();
+            keysById.clear();
+            removedChangeSeq.clear();
+            for (OrderEntity order : orderRepository.findByStatusIn(TRACKED_STATUSES, Sort.unsorted())) {
+                put(order.getId(), new OrderKey(order.getOrderDate(), order.getOrderNumber()), order.getStatus(), changeSeqOf(order.getChangeSeq()));
+            }
+            initialized = true;
+            version.incrementAndGet();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // przed pozostalymi sluchaczami - strumien SSE wysylajacy snapshot ma juz aktualny indeks
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOrdersChanged(OrderChangedEvent event) {
+        writeLock.lock();
+        try {
+            if (!initialized) {
+                // zmiany sprzed odbudowy - rebuild() i tak odczyta je z bazy
+                return;
+            }
+            boolean changed = false;
+            for (OrderChangedEvent.ChangedOrder order : event.orders()) {
+                changed |= apply(order);
+            }
+            if (changed) {
+                version.incrementAndGet();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public OrderService.ActiveOrdersSnapshot snapshot() {
+        if (!initialized) {
+            rebuild();
+        }
+        Snapshot current = snapshot;
+        // najpierw wersja, potem kopia - kopia zawiera co najmniej wszystkie zmiany do tej wersji
+        long currentVersion = version.get();
+        if (current.version() != currentVersion) {
+            List<PublicOrderView> view = new ArrayList<>(orders.size());
+            orders.values().forEach(entry -> view.add(entry.view()));
+            current = new Snapshot(currentVersion, List.copyOf(view));
+            snapshot = current;
+        }
+        return new OrderService.ActiveOrdersSnapshot(current.orders(), "\"" + epoch + "-" + current.version() + "\"");
+    }
+
+    private boolean apply(OrderChangedEvent.ChangedOrder order) {
+        long changeSeq = changeSeqOf(order.changeSeq());
+        OrderKey key = keysById.get(order.id());
+        if (key != null && orders.get(key).changeSeq() > changeSeq) {
+            return false;
+        }
+        Long removedAt = removedChangeSeq.get(order.id());
+        if (removedAt != null && removedAt > changeSeq) {
+            return false;
+        }
+        if (TRACKED_STATUSES.contains(OrderStatus.fromLabel(order.status()))) {
+            removedChangeSeq.remove(order.id());
+            put(order.id(), new OrderKey(order.orderDate(), order.orderNumber()), order.status(), changeSeq);
+            return true;
+        }
+        removedChangeSeq.put(order.id(), changeSeq);
+        if (key == null) {
+            return false;
+        }
+        orders.remove(key);
+        keysById.remove(order.id());
+        return true;
+    }
+
+    private void put(Long id, OrderKey key, String status, long changeSeq) {
+        OrderKey previous = keysById.put(id, key);
+        if (previous != null && !previous.equals(key)) {
+            orders.remove(previous);
+        }
+        orders.put(key, new Entry(new PublicOrderView(id, key.orderNumber(), status), changeSeq));
+    }
+
+    private long changeSeqOf(Long changeSeq) {
+        return changeSeq != null ? changeSeq : 0L;
+    }
+
+    record OrderKey(LocalDate orderDate, Long orderNumber) implements Comparable<OrderKey> {
+        private static final Comparator<OrderKey> ORDER = Comparator
+                .comparing(OrderKey::orderDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(OrderKey::orderNumber, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        @Override
+        public int compareTo(OrderKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private record Entry(PublicOrderView view, long changeSeq) {}
+
+    private record Snapshot(long version, List<PublicOrderView> orders) {}
+}
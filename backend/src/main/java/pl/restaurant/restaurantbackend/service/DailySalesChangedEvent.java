@@ -0,0 +1,8 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// przyrosty sprzedazy dziennej z jednej transakcji OrderService (nowe zamowienia, zmiany czasu obslugi);
+// DailySalesRollup dopisuje je do rollupu dopiero po commicie
+public record DailySalesChangedEvent(Map<LocalDate, SalesTally> days) {}
@@ -0,0 +1,248 @@
+package pl.restaurant.restaurantbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.restaurant.restaurantbackend.model.DailyProductSales;
+import pl.restaurant.restaurantbackend.model.DailySalesSummary;
+import pl.restaurant.restaurantbackend.repository.DailyProductSalesRepository;
+import pl.restaurant.restaurantbackend.repository.DailySalesSummaryRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// rollup sprzedazy dziennej (daily_sales_summary + daily_product_sales) dla raportu statystyk: rok to ~365 wierszy
+// zamiast wszystkich zamowien z pozycjami. Przyrosty z OrderService dopisywane po commicie zamowienia w osobnej
+// krotkiej transakcji - blokada wiersza dnia nie jest trzymana przez cala transakcje zamowienia.
+// Przyrost utracony przy awarii miedzy commitami naprawia przy starcie tylko przeliczenie ostatnich repair-days dni
+// (domyslnie dzis i wczoraj - nowe zamowienia i biezace zmiany statusu); utracona zmiana starszego zamowienia wymaga
+// rebuild() tego dnia. Brakujaca historia (pierwsze uruchomienie) jest uzupelniana w tle od najnowszych dni, a do tego
+// czasu starsze zakresy licza sie z zamowien. Zapisy z pominieciem OrderService (recznie w bazie) - dopiero po rebuild().
+@Component
+public class DailySalesRollup {
+    private static final Logger log = LoggerFactory.getLogger(DailySalesRollup.class);
+    private static final int MAX_APPLY_ATTEMPTS = 3;
+    private static final int REBUILD_CHUNK_DAYS = 31;
+
+    private final DailySalesSummaryRepository summaryRepository;
+    private final DailyProductSalesRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate writeTransaction;
+    private final int repairDays;
+    private volatile boolean running = true;
+    private volatile Thread backfill;
+    // najstarszy dzien, od ktorego rollup jest kompletny; LocalDate.MAX - jeszcze nic (przed startem)
+    private volatile LocalDate coveredFrom = LocalDate.MAX;
+    // przyrost trzyma blokade odczytu od commitu zamowienia do zapisania w rollupie, a odbudowa blokade zapisu -
+    // odbudowa nie czyta zamowienia, ktorego przyrost jeszcze nie doszedl (podwojne liczenie), ani nie kasuje przyrostu
+    // zapisanego w trakcie jej odczytu (utracone liczenie). Blokada w pamieci zaklada jedna instancje backendu.
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public DailySalesRollup(
+            DailySalesSummaryRepository summaryRepository,
+            DailyProductSalesRepository productRepository,
+            OrderRepository orderRepository,
+            OrderService orderService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.reports.rollup.repair-days:2}") int repairDays
+    ) {
+        this.summaryRepository = summaryRepository;
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.repairDays = Math.max(1, repairDays);
+    }
+
+    // po runnerach startowych - dane przykladowe z seedData (zapisane przez repozytoria) trafiaja do przeliczenia;
+    // przyrosty z rownoleglych zamowien czekaja na blokadzie odbudowy
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        LocalDate today = LocalDate.now();
+        LocalDate repairFrom = today.minusDays(repairDays - 1);
+        LocalDate firstRolled = summaryRepository.findFirstOrderDate();
+        rebuild(repairFrom, today);
+
+        LocalDate firstOrder = orderRepository.findFirstOrderDate();
+        LocalDate rolledFrom = firstRolled != null && firstRolled.isBefore(repairFrom) ? firstRolled : repairFrom;
+        if (firstOrder == null || !firstOrder.isBefore(rolledFrom)) {
+            coveredFrom = LocalDate.MIN;
+            return;
+        }
+        coveredFrom = rolledFrom;
+        backfill = new Thread(() -> runBackfill(firstOrder, rolledFrom.minusDays(1)), "daily-sales-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread thread = backfill;
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    // pusty wynik, gdy zakres siega przed uzupelniona historie - raport liczy wtedy statystyki z zamowien
+    public Optional<OrderService.SalesStats> stats(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isBefore(coveredFrom)) {
+            return Optional.empty();
+        }
+        DailySalesSummaryRepository.SalesTotals totals = summaryRepository.sumBetween(from, to);
+        String topProduct = productRepository.findTopProductNames(from, to, PageRequest.of(0, 1)).stream()
+                .findFirst()
+                .orElse(null);
+        return Optional.of(new OrderService.SalesStats(
+                totals.getOrders(), totals.getRevenue(), topProduct, totals.getServiceCount(), totals.getServiceSeconds()));
+    }
+
+    // tuz przed commitem zamowienia - zwalniana po zapisaniu przyrostu (afterCommit) albo po wycofaniu transakcji
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeSalesCommit(DailySalesChangedEvent event) {
+        rebuildLock.readLock().lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                rebuildLock.readLock().unlock();
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(DailySalesChangedEvent event) {
+        rebuildLock.readLock().lock();
+        try {
+            applyWithRetry(event);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void applyWithRetry(DailySalesChangedEvent event) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeTransaction.executeWithoutResult(status -> event.days().forEach(this::applyDay));
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                // wiersz dnia zalozyla rownolegle inna transakcja - ponawiamy na istniejacym
+                if (attempt < MAX_APPLY_ATTEMPTS) {
+                    continue;
+                }
+                log.warn("Nie udalo sie zaktualizowac rollupu sprzedazy dla dni {}", event.days().keySet(), ex);
+                return;
+            } catch (RuntimeException ex) {
+                // zamowienie jest juz zapisane - blad rollupu nie moze wrocic do klienta jako blad zamowienia
+                log.warn("Nie udalo sie zaktualizowac rollupu sprzedazy dla dni {}", event.days().keySet(), ex);
+                return;
+            }
+        }
+    }
+
+    // sumy dni [from, to] liczone od nowa z zamowien, paczkami po miesiacu
+    public void rebuild(LocalDate from, LocalDate to) {
+        for (LocalDate chunkTo = to; !chunkTo.isBefore(from) && running; chunkTo = chunkTo.minusDays(REBUILD_CHUNK_DAYS)) {
+            LocalDate chunkFrom = chunkTo.minusDays(REBUILD_CHUNK_DAYS - 1);
+            rebuildChunk(chunkFrom.isBefore(from) ? from : chunkFrom, chunkTo);
+        }
+    }
+
+    private void runBackfill(LocalDate from, LocalDate to) {
+        try {
+            for (LocalDate chunkTo = to; !chunkTo.isBefore(from) && running; chunkTo = chunkTo.minusDays(REBUILD_CHUNK_DAYS)) {
+                LocalDate chunkFrom = chunkTo.minusDays(REBUILD_CHUNK_DAYS - 1);
+                if (chunkFrom.isBefore(from)) {
+                    chunkFrom = from;
+                }
+                rebuildChunk(chunkFrom, chunkTo);
+                coveredFrom = chunkFrom;
+            }
+            if (running) {
+                coveredFrom = LocalDate.MIN;
+                log.info("Uzupelniono rollup sprzedazy od {}", from);
+            }
+        } catch (RuntimeException ex) {
+            // kolejny start wznowi uzupelnianie od najstarszego zapisanego dnia
+            log.warn("Przerwano uzupelnianie rollupu sprzedazy", ex);
+        }
+    }
+
+    // wiersze dni zablokowane przed odczytem zamowien, a zamowienia czytane w tej samej transakcji co zapis -
+    // przyrost z innej instancji czeka na koniec odbudowy i trafia na przeliczony wiersz
+    private void rebuildChunk(LocalDate from, LocalDate to) {
+        rebuildLock.writeLock().lock();
+        try {
+            writeTransaction.executeWithoutResult(status -> replaceDays(from, to));
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private void replaceDays(LocalDate from, LocalDate to) {
+        summaryRepository.findByOrderDateBetween(from, to);
+        Map<LocalDate, SalesTally> days;
+        try {
+            days = orderService.collectDailySales(from, to);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        productRepository.deleteBetween(from, to);
+        summaryRepository.deleteBetween(from, to);
+        List<DailySalesSummary> summaries = new ArrayList<>(days.size());
+        List<DailyProductSales> products = new ArrayList<>();
+        days.forEach((day, tally) -> {
+            DailySalesSummary summary = new DailySalesSummary(day);
+            summary.add(tally.orders(), tally.revenue(), tally.serviceCount(), tally.serviceSeconds());
+            summaries.add(summary);
+            tally.products().forEach((name, quantity) -> {
+                DailyProductSales product = new DailyProductSales(day, name);
+                product.addQuantity(quantity);
+                products.add(product);
+            });
+        });
+        summaryRepository.saveAll(summaries);
+        productRepository.saveAll(products);
+    }
+
+    // wiersz dnia blokowany jako pierwszy - przyrosty tego samego dnia czekaja na siebie, wiec wiersze produktow
+    // nie sa zakladane podwojnie
+    private void applyDay(LocalDate day, SalesTally tally) {
+        DailySalesSummary summary = summaryRepository.findByOrderDate(day)
+                .orElseGet(() -> summaryRepository.saveAndFlush(new DailySalesSummary(day)));
+        summary.add(tally.orders(), tally.revenue(), tally.serviceCount(), tally.serviceSeconds());
+        if (tally.products().isEmpty()) {
+            return;
+        }
+        Map<String, DailyProductSales> products = productRepository.findByOrderDateAndProductNameIn(day, tally.products().keySet())
+                .stream()
+                .collect(Collectors.toMap(DailyProductSales::getProductName, product -> product));
+        tally.products().forEach((name, quantity) -> products
+                .computeIfAbsent(name, missing -> productRepository.save(new DailyProductSales(day, missing)))
+                .addQuantity(quantity));
+    }
+}
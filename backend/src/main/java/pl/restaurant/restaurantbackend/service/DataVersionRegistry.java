@@ -0,0 +1,100 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// wersje danych dla warunkowych GET (ETag/If-None-Match): licznik na kazdy dzien zamowien, licznik wszystkich
+// zamowien (zapytania bez ograniczenia dat) i licznik menu. Podbijane dopiero po commicie - ETag liczony przed
+// zapytaniem moze byc co najwyzej starszy od danych (zbedne 200), nigdy nowszy (bledne 304).
+// Wersje sa w pamieci procesu, wiec zakladaja jedna instancje backendu; epoka uniewaznia ETagi po restarcie.
+@Component
+public class DataVersionRegistry {
+    // dluzszy zakres dat liczony licznikiem globalnym zamiast sumowania dni
+    private static final long MAX_SUMMED_DAYS = 400;
+
+    private volatile String epoch = newEpoch();
+    private final ConcurrentMap<LocalDate, AtomicLong> orderDateVersions = new ConcurrentHashMap<>();
+    private final AtomicLong allOrdersVersion = new AtomicLong();
+    private final AtomicLong menuVersion = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOrdersChanged(OrderChangedEvent event) {
+        event.orders().stream()
+                .map(OrderChangedEvent.ChangedOrder::orderDate)
+                .distinct()
+                .forEach(this::orderDateChanged);
+    }
+
+    // serwer HTTP dziala juz przed runnerami startowymi, a dane przykladowe zapisuja repozytoria bez zdarzen -
+    // nowa epoka uniewaznia ETagi wydane, zanim aplikacja byla gotowa
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        epoch = newEpoch();
+    }
+
+    public void orderDateChanged(LocalDate orderDate) {
+        if (orderDate != null) {
+            orderDateVersions.computeIfAbsent(orderDate, date -> new AtomicLong()).incrementAndGet();
+        }
+        allOrdersVersion.incrementAndGet();
+    }
+
+    public void menuChanged() {
+        menuVersion.incrementAndGet();
+    }
+
+    // suma wersji dni z zakresu rosnie przy kazdej zmianie w tym zakresie, wiec wystarcza jako wersja zakresu
+    public long ordersVersion(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to) || ChronoUnit.DAYS.between(from, to) > MAX_SUMMED_DAYS) {
+            return allOrdersVersion.get();
+        }
+        long sum = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            AtomicLong version = orderDateVersions.get(date);
+            if (version != null) {
+                sum += version.get();
+            }
+        }
+        return sum;
+    }
+
+    public long menuVersion() {
+        return menuVersion.get();
+    }
+
+    // If-None-Match moze zawierac kilka ETagow, a proxy z kompresja oznacza je jako slabe (W/)
+    public boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || "*".equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // query = parametry zapytania (strona, filtry) - ta sama wersja danych, ale inna tresc odpowiedzi
+    public String etag(String scope, long version, Object query) {
+        return "\"" + scope + "-" + epoch + "-" + version + "-" + Integer.toHexString(query.hashCode()) + "\"";
+    }
+
+    private static String newEpoch() {
+        return Long.toString(System.currentTimeMillis(), 36);
+    }
+}
@@ -0,0 +1,330 @@
+package pl.restaurant.restaurantbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
+import pl.restaurant.restaurantbackend.dto.order.OrderStatusChangeDto;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+
+// kanal WebSocket stanowisk kuchni i wydawki: kazde stanowisko wybiera statusy i typy zamowien, a po commicie
+// dostaje pelne OrderDto zmienionych zamowien. Zamowienia sa czytane raz na zmiane (nie raz na stanowisko),
+// a wiadomosc serializowana raz na filtr. Kazde stanowisko ma wlasna ograniczona kolejke wysylki - wolne
+// polaczenie nie blokuje zapisu zamowien ani innych stanowisk, a po przepelnieniu jest zamykane (klient
+// laczy sie ponownie i pobiera pelna liste). Po wygasnieciu tokenu, z ktorego powstal bilet polaczenia
+// (SocketAuthInterceptor), stanowisko jest rozlaczane przy najblizszym heartbeat, a przy zatrzymaniu aplikacji
+// wszystkie stanowiska dostaja 1001 (GOING_AWAY), zanim serwer WWW zacznie konczyc otwarte zadania.
+@Component
+public class KitchenOrderBroadcaster implements SmartLifecycle {
+    // atrybut sesji WebSocket z waznoscia tokenu (Instant) ustawiany przy handshake
+    public static final String AUTH_EXPIRES_AT_ATTRIBUTE = "authExpiresAt";
+    private static final String INITIAL_STATUS = OrderStatus.IN_PROGRESS.label();
+    private static final CloseStatus TOKEN_EXPIRED = CloseStatus.POLICY_VIOLATION.withReason("Token wygasl");
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final int maxConnections;
+    private final int maxPending;
+    private final Map<String, Station> stations = new ConcurrentHashMap<>();
+    // rezerwacja miejsca przed dodaniem stanowiska - samo stations.size() przepuszczaloby rownolegle handshake ponad limit
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile boolean running;
+    // kolejnosc zmian jak kolejnosc commitow - odczyt z bazy i rozdzial na stanowiska na jednym watku
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kitchen-order-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders;
+
+    public KitchenOrderBroadcaster(
+            OrderService orderService,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.kitchen.max-connections:100}") int maxConnections,
+            @Value("${app.orders.kitchen.max-pending:64}") int maxPending,
+            @Value("${app.orders.kitchen.sender-threads:4}") int senderThreads
+    ) {
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.maxPending = Math.max(1, maxPending);
+        AtomicInteger senderIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "kitchen-order-sender-" + senderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // jak w PublicOrderEventBroadcaster - faza domyslna zatrzymuje sie przed graceful shutdown serwera WWW,
+    // stanowiska dostaja 1001 i lacza sie ponownie z kolejna instancja
+    @Override
+    public void stop() {
+        running = false;
+        stations.values().forEach(station -> station.close(CloseStatus.GOING_AWAY));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    public void register(WebSocketSession session) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManyStationsException(maxConnections);
+        }
+        Station station = new Station(session);
+        if (stations.putIfAbsent(session.getId(), station) != null) {
+            connections.decrementAndGet();
+            return;
+        }
+        if (!running) {
+            // handshake zakonczony w trakcie zatrzymywania - stop() moglby juz nie zobaczyc tego stanowiska
+            station.close(CloseStatus.GOING_AWAY);
+        }
+    }
+
+    public void unregister(WebSocketSession session) {
+        remove(session.getId());
+    }
+
+    // puste statusy/typy = wszystkie; kolejna subskrypcja na tym samym polaczeniu zastepuje poprzednia
+    public void subscribe(WebSocketSession session, Set<String> statuses, Set<String> types) {
+        Station station = stations.get(session.getId());
+        if (station == null) {
+            return;
+        }
+        StationFilter filter = new StationFilter(Set.copyOf(statuses), Set.copyOf(types));
+        station.filter = filter;
+        Map<String, Object> ack = new LinkedHashMap<>();
+        ack.put("type", "subscribed");
+        ack.put("statuses", filter.statuses());
+        ack.put("types", filter.types());
+        station.offer(new TextMessage(serialize(ack)));
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(OrderChangedEvent event) {
+        if (stations.isEmpty() || event.orders().isEmpty()) {
+            return;
+        }
+        List<Long> ids = event.orders().stream()
+                .map(OrderChangedEvent.ChangedOrder::id)
+                .distinct()
+                .collect(Collectors.toList());
+        submit(dispatcher, () -> dispatch(ids));
+    }
+
+    // ping utrzymuje polaczenie przez proxy i wykrywa zerwane polaczenia przy zapisie; stanowiska z wygaslym
+    // tokenem sa zamykane (1008) - klient po ponownym zalogowaniu pobiera nowy bilet
+    @Scheduled(fixedDelayString = "${app.orders.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        PingMessage ping = new PingMessage(ByteBuffer.allocate(0));
+        Instant now = Instant.now();
+        stations.values().forEach(station -> {
+            if (station.expired(now)) {
+                station.close(TOKEN_EXPIRED);
+            } else {
+                station.offer(ping);
+            }
+        });
+    }
+
+    private void dispatch(List<Long> ids) {
+        if (stations.isEmpty()) {
+            return;
+        }
+        List<OrderDto> orders = orderService.findOrderDtos(ids);
+        Map<StationFilter, TextMessage> messages = new HashMap<>();
+        for (Station station : stations.values()) {
+            StationFilter filter = station.filter;
+            if (filter == null) {
+                continue;
+            }
+            TextMessage message = messages.computeIfAbsent(filter, key -> ordersMessage(key, orders));
+            if (message != null) {
+                station.offer(message);
+            }
+        }
+    }
+
+    private TextMessage ordersMessage(StationFilter filter, List<OrderDto> orders) {
+        List<OrderDto> matching = new ArrayList<>();
+        for (OrderDto order : orders) {
+            if (filter.matches(order)) {
+                matching.add(order);
+            }
+        }
+        if (matching.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "orders");
+        payload.put("orders", matching);
+        return new TextMessage(serialize(payload));
+    }
+
+    private void remove(String sessionId) {
+        if (stations.remove(sessionId) != null) {
+            connections.decrementAndGet();
+        }
+    }
+
+    private void submit(ExecutorService executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // zatrzymywanie aplikacji - polaczenia i tak zostana zamkniete
+        }
+    }
+
+    private String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Nie mozna zserializowac zamowien.", ex);
+        }
+    }
+
+    // zamowienie, ktore wlasnie opuscilo subskrybowany status (np. "W realizacji" -> "Gotowe"), tez jest wysylane -
+    // stanowisko usuwa je z listy na podstawie nowego statusu
+    record StationFilter(Set<String> statuses, Set<String> types) {
+        boolean matches(OrderDto order) {
+            if (!types.isEmpty() && !types.contains(order.type())) {
+                return false;
+            }
+            if (statuses.isEmpty() || statuses.contains(order.status())) {
+                return true;
+            }
+            String previous = previousStatus(order);
+            return previous != null && statuses.contains(previous);
+        }
+
+        // historia nie zawiera statusu poczatkowego - pierwsza zmiana zawsze wychodzi z "W realizacji"
+        private static String previousStatus(OrderDto order) {
+            List<OrderStatusChangeDto> history = order.statusHistory().stream()
+                    .sorted(Comparator.comparing(OrderStatusChangeDto::changedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                            .thenComparing(OrderStatusChangeDto::id, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .collect(Collectors.toList());
+            if (history.isEmpty()) {
+                return null;
+            }
+            return history.size() == 1 ? INITIAL_STATUS : history.get(history.size() - 2).status();
+        }
+    }
+
+    private final class Station {
+        private final WebSocketSession session;
+        private final ConcurrentLinkedQueue<WebSocketMessage<?>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Instant authExpiresAt;
+        private volatile StationFilter filter;
+
+        private Station(WebSocketSession session) {
+            this.session = session;
+            this.authExpiresAt = (Instant) session.getAttributes().get(AUTH_EXPIRES_AT_ATTRIBUTE);
+        }
+
+        private boolean expired(Instant now) {
+            return authExpiresAt != null && !authExpiresAt.isAfter(now);
+        }
+
+        private void offer(WebSocketMessage<?> message) {
+            if (pendingCount.incrementAndGet() > maxPending) {
+                close(CloseStatus.SESSION_NOT_RELIABLE);
+                return;
+            }
+            pending.add(message);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                submit(senders, this::drain);
+            }
+        }
+
+        // WebSocketSession nie pozwala na rownolegle zapisy - na raz wysyla tylko jeden watek (flaga draining)
+        private void drain() {
+            try {
+                WebSocketMessage<?> message;
+                while ((message = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    if (!session.isOpen()) {
+                        pending.clear();
+                        return;
+                    }
+                    session.sendMessage(message);
+                }
+            } catch (IOException | RuntimeException ex) {
+                close(CloseStatus.SERVER_ERROR);
+            } finally {
+                draining.set(false);
+                if (!pending.isEmpty() && session.isOpen()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        private void close(CloseStatus status) {
+            remove(session.getId());
+            pending.clear();
+            try {
+                session.close(status);
+            } catch (IOException | RuntimeException ex) {
+                // polaczenie juz zerwane
+            }
+        }
+    }
+
+    public static class TooManyStationsException extends RuntimeException {
+        public TooManyStationsException(int limit) {
+            super("Osiagnieto limit polaczen stanowisk kuchni (" + limit + ").");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+// niezmienna migawka menu uzywana przy walidacji i wycenie zamowien; podmieniana w calosci
+// po kazdej zmianie menu, dzieki czemu tworzenie zamowienia nie czyta tabeli menu_item
+@Component
+public class MenuCatalog {
+    private final MenuItemRepository menuItemRepository;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile MenuSnapshot snapshot;
+
+    public MenuCatalog(MenuItemRepository menuItemRepository) {
+        this.menuItemRepository = menuItemRepository;
+    }
+
+    public MenuSnapshot current() {
+        MenuSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    public MenuSnapshot refresh() {
+        refreshLock.lock();
+        try {
+            Map<Long, MenuEntry> items = new HashMap<>();
+            for (MenuItem item : menuItemRepository.findAll()) {
+                items.put(item.getId(), MenuEntry.of(item));
+            }
+            MenuSnapshot previous = snapshot;
+            // wersja oparta o zegar, zeby po restarcie nie powtarzala numerow zapisanych w zamowieniach
+            long version = Math.max(previous != null ? previous.version() + 1 : 1, System.currentTimeMillis());
+            MenuSnapshot refreshed = new MenuSnapshot(version, Map.copyOf(items));
+            snapshot = refreshed;
+            return refreshed;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public record MenuSnapshot(long version, Map<Long, MenuEntry> items) {
+        public MenuEntry find(Long id) {
+            return id != null ? items.get(id) : null;
+        }
+
+        public boolean containsAll(Iterable<Long> ids) {
+            for (Long id : ids) {
+                if (!items.containsKey(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public record MenuEntry(Long id, String name, String nameEn, double price, boolean active) {
+        static MenuEntry of(MenuItem item) {
+            return new MenuEntry(item.getId(), item.getName(), item.getNameEn(), item.getPrice(), item.isActive());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// numery zmian zamowien (order_entity.change_seq) dla GET /api/orders/changes. Numer jest nadawany przed
+// commitem, wiec transakcja z nizszym numerem moze zakonczyc sie pozniej - kursor udostepniany klientom
+// nie przekracza najnizszego numeru wciaz otwartej transakcji, zeby zadna zmiana nie zostala pominieta.
+// Licznik jest w pamieci procesu - zaklada jedna instancje backendu zapisujaca zamowienia.
+@Component
+public class OrderChangeSequence {
+    private final OrderRepository orderRepository;
+    private final ReentrantLock initLock = new ReentrantLock();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private volatile AtomicLong sequence;
+
+    public OrderChangeSequence(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    public long next() {
+        AtomicLong current = sequence();
+        long value;
+        // rejestracja i pobranie numeru razem, zeby safeCursor() nie minal numeru jeszcze niezarejestrowanego
+        synchronized (inFlight) {
+            value = current.incrementAndGet();
+            inFlight.add(value);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(value);
+                }
+            });
+        } else {
+            inFlight.remove(value);
+        }
+        return value;
+    }
+
+    // najwyzszy numer, ponizej ktorego wszystkie zmiany sa juz zatwierdzone albo wycofane
+    public long safeCursor() {
+        AtomicLong current = sequence();
+        synchronized (inFlight) {
+            Long oldestOpen = inFlight.isEmpty() ? null : inFlight.first();
+            return oldestOpen != null ? oldestOpen - 1 : current.get();
+        }
+    }
+
+    private AtomicLong sequence() {
+        AtomicLong current = sequence;
+        if (current != null) {
+            return current;
+        }
+        initLock.lock();
+        try {
+            if (sequence == null) {
+                sequence = new AtomicLong(orderRepository.findMaxChangeSeq());
+            }
+            return sequence;
+        } finally {
+            initLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import pl.restaurant.restaurantbackend.dto.PublicOrderView;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+
+// publikowane przez OrderService przy kazdym zapisie zamowien; sluchacze dostaja je po commicie
+// (@TransactionalEventListener), wiec nie widza zmian z wycofanych transakcji
+public record OrderChangedEvent(List<ChangedOrder> orders) {
+
+    static OrderChangedEvent of(Collection<OrderEntity> orders) {
+        return new OrderChangedEvent(orders.stream()
+                .map(order -> new ChangedOrder(order.getId(), order.getOrderDate(), order.getOrderNumber(), order.getStatus(),
+                        order.getChangeSeq()))
+                .distinct()
+                .collect(Collectors.toList()));
+    }
+
+    // changeSeq pozwala odrzucic zdarzenie, ktore dotarlo po nowszym dla tego samego zamowienia
+    public record ChangedOrder(Long id, LocalDate orderDate, Long orderNumber, String status, Long changeSeq) {
+        public PublicOrderView toPublicView() {
+            return new PublicOrderView(id, orderNumber, status);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package pl.restaurant.restaurantbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
+import pl.restaurant.restaurantbackend.dto.order.mapper.OrderMapper;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderIdempotencyKey;
+import pl.restaurant.restaurantbackend.repository.OrderIdempotencyKeyRepository;
+
+// obsluga naglowka Idempotency-Key: ponowione zadanie z tym samym kluczem dostaje pierwotne zamowienie
+// z pamieci (ograniczona mapa z TTL) albo z tabeli order_idempotency_key, bez nadawania nowego numeru.
+// Wiersz klucza zapisuje tworzenie zamowienia w jego transakcji (OrderService.createOrder) - zapisane zamowienie
+// zawsze ma klucz, a blad zapisu klucza wycofuje zamowienie.
+@Component
+public class OrderIdempotencyService {
+    private static final Logger log = LoggerFactory.getLogger(OrderIdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 15;
+
+    private final OrderIdempotencyKeyRepository keyRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Map<String, StoredResponse> responses;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public OrderIdempotencyService(
+            OrderIdempotencyKeyRepository keyRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${app.orders.idempotency.ttl-minutes:60}") long ttlMinutes
+    ) {
+        this.keyRepository = keyRepository;
+        this.objectMapper = objectMapper;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttl = Duration.ofMinutes(Math.max(1, ttlMinutes));
+        // kolejnosc wstawiania - najstarszy wpis jest zawsze na poczatku, wiec wygasanie konczy sie na pierwszym swiezym
+        this.responses = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > OrderIdempotencyService.this.maxEntries;
+            }
+        };
+    }
+
+    // createOrder dostaje funkcje budujaca wiersz order_idempotency_key z zapisanego zamowienia (null bez naglowka)
+    public OrderDto execute(String idempotencyKey, CreateOrderRequest request,
+                            Function<Function<OrderEntity, OrderIdempotencyKey>, OrderEntity> createOrder) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return OrderMapper.toDto(createOrder.apply(null));
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Naglowek Idempotency-Key moze miec maksymalnie " + MAX_KEY_LENGTH + " znakow.");
+        }
+        String requestHash = fingerprint(request);
+
+        StoredResponse stored = cached(key);
+        if (stored != null) {
+            return replay(stored.requestHash(), requestHash, stored.order());
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // ten sam klucz jest wlasnie obslugiwany - czekamy na wynik zamiast tworzyc drugie zamowienie
+            return replay(running.requestHash(), requestHash, await(running.result()));
+        }
+        try {
+            OrderDto order = loadPersisted(key, requestHash);
+            if (order == null) {
+                order = OrderMapper.toDto(createOrder.apply(saved -> keyRow(key, requestHash, saved)));
+                remember(key, new StoredResponse(requestHash, order, System.currentTimeMillis()));
+            }
+            mine.result().complete(order);
+            return order;
+        } catch (RuntimeException ex) {
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        synchronized (responses) {
+            Iterator<StoredResponse> iterator = responses.values().iterator();
+            while (iterator.hasNext() && iterator.next().storedAtMillis() < cutoff) {
+                iterator.remove();
+            }
+        }
+        int removed = keyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (removed > 0) {
+            log.debug("Usunieto {} wygaslych kluczy idempotencji", removed);
+        }
+    }
+
+    private StoredResponse cached(String key) {
+        synchronized (responses) {
+            StoredResponse stored = responses.get(key);
+            if (stored != null && stored.storedAtMillis() < System.currentTimeMillis() - ttl.toMillis()) {
+                responses.remove(key);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void remember(String key, StoredResponse stored) {
+        synchronized (responses) {
+            responses.put(key, stored);
+        }
+    }
+
+    private OrderDto loadPersisted(String key, String requestHash) {
+        OrderIdempotencyKey row = keyRepository.findById(key).orElse(null);
+        if (row == null || row.getCreatedAt().isBefore(LocalDateTime.now().minus(ttl))) {
+            return null;
+        }
+        OrderDto order = replay(row.getRequestHash(), requestHash, readOrder(row.getResponse()));
+        remember(key, new StoredResponse(row.getRequestHash(), order, System.currentTimeMillis()));
+        return order;
+    }
+
+    private OrderIdempotencyKey keyRow(String key, String requestHash, OrderEntity order) {
+        try {
+            return new OrderIdempotencyKey(key, requestHash, objectMapper.writeValueAsString(OrderMapper.toDto(order)), LocalDateTime.now());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Nie mozna zapisac odpowiedzi dla klucza idempotencji.", ex);
+        }
+    }
+
+    private OrderDto replay(String storedHash, String requestHash, OrderDto order) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyConflictException();
+        }
+        return order;
+    }
+
+    private OrderDto await(CompletableFuture<OrderDto> result) {
+        try {
+            return result.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Nie udalo sie zapisac zamowienia.", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("Przekroczono czas oczekiwania na zapis zamowienia.", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano oczekiwanie na zapis zamowienia.", ex);
+        }
+    }
+
+    private OrderDto readOrder(String json) {
+        try {
+            return objectMapper.readValue(json, OrderDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Nie mozna odczytac zapisanej odpowiedzi dla klucza idempotencji.", ex);
+        }
+    }
+
+    private String fingerprint(CreateOrderRequest request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Nie mozna obliczyc skrotu zamowienia.", ex);
+        }
+    }
+
+    private record StoredResponse(String requestHash, OrderDto order, long storedAtMillis) {}
+
+    private record InFlight(String requestHash, CompletableFuture<OrderDto> result) {}
+
+    public static class IdempotencyConflictException extends RuntimeException {
+        public IdempotencyConflictException() {
+            super("Klucz Idempotency-Key zostal juz uzyty dla innego zamowienia.");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package pl.restaurant.restaurantbackend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderIdempotencyKey;
+
+// tryb "group commit": zamowienia z wielu watkow HTTP sa zbierane w kolejce i zapisywane
+// przez jeden watek w jednej transakcji (co window-ms albo po max-batch zamowieniach)
+@Component
+public class OrderIntakePipeline {
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakePipeline.class);
+    private static final long SUBMIT_TIMEOUT_SECONDS = 10;
+
+    private final OrderService orderService;
+    private final OrderJournal orderJournal;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<PendingOrder> queue;
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderIntakePipeline(
+            OrderService orderService,
+            OrderJournal orderJournal,
+            @Value("${app.orders.group-commit.enabled:false}") boolean enabled,
+            @Value("${app.orders.group-commit.window-ms:5}") long windowMillis,
+            @Value("${app.orders.group-commit.max-batch:50}") int maxBatch
+    ) {
+        this.orderService = orderService;
+        this.orderJournal = orderJournal;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, windowMillis));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.queue = new LinkedBlockingQueue<>(this.maxBatch * 20);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(SUBMIT_TIMEOUT_SECONDS));
+        List<PendingOrder> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.result().completeExceptionally(
+                new IllegalStateException("Przyjmowanie zamowien zostalo zatrzymane.")));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OrderEntity createOrder(CreateOrderRequest request) {
+        return createOrder(request, null);
+    }
+
+    // keyRow - wiersz klucza idempotencji (OrderService.createOrder); w kazdym trybie zapisywany razem z zamowieniem
+    public OrderEntity createOrder(CreateOrderRequest request, Function<OrderEntity, OrderIdempotencyKey> keyRow) {
+        if (orderJournal.isEnabled()) {
+            // odpowiedz po zapisie do dziennika; do bazy zamowienie trafia asynchronicznie (bez id do czasu zapisu),
+            // klucz idempotencji jest czescia tego samego wpisu
+            OrderEntity order = orderService.prepareOrder(request);
+            return orderJournal.append(order, keyRow == null ? null : keyRow.apply(order));
+        }
+        if (!enabled) {
+            return orderService.createOrder(request, keyRow);
+        }
+        PendingOrder pending = new PendingOrder(request, keyRow, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            // kolejka pelna - zapisujemy zamowienie po staremu, zamiast odrzucac klienta
+            return orderService.createOrder(request, keyRow);
+        }
+        try {
+            return pending.result().get(SUBMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Nie udalo sie zapisac zamowienia.", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("Przekroczono czas oczekiwania na zapis zamowienia.", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Przerwano oczekiwanie na zapis zamowienia.", ex);
+        }
+    }
+
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                PendingOrder first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                // przerwanie przy zatrzymaniu - zebrana paczka jest jeszcze zapisywana, a petla konczy sie na fladze running
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        List<OrderService.BatchOrderResult> results;
+        try {
+            results = orderService.createOrders(batch.stream().map(PendingOrder::request).collect(Collectors.toList()),
+                    batch.stream().map(PendingOrder::keyRow).collect(Collectors.toList()));
+        } catch (RuntimeException ex) {
+            log.warn("Zapis paczki {} zamowien nie powiodl sie", batch.size(), ex);
+            batch.forEach(pending -> pending.result().completeExceptionally(ex));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            OrderService.BatchOrderResult result = results.get(i);
+            if (result.order() != null) {
+                batch.get(i).result().complete(result.order());
+            } else {
+                batch.get(i).result().completeExceptionally(new IllegalArgumentException(result.error()));
+            }
+        }
+    }
+
+    private record PendingOrder(CreateOrderRequest request, Function<OrderEntity, OrderIdempotencyKey> keyRow,
+                                CompletableFuture<OrderEntity> result) {}
+}
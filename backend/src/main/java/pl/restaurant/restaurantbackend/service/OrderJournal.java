@@ -0,0 +1,363 @@
+package pl.restaurant.restaurantbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderIdempotencyKey;
+import pl.restaurant.restaurantbackend.model.OrderItem;
+
+// tryb "fast ack": zamowienie z nadanym numerem trafia do lokalnego dziennika (append + fsync wspolny dla
+// rownoleglych zapisow), klient dostaje odpowiedz od razu, a osobny watek przenosi wpisy do bazy paczkami;
+// po restarcie nieprzeniesione wpisy sa odtwarzane przed uruchomieniem serwera HTTP. Wpis, ktorego baza nie przyjmie
+// nigdy (blad niezwiazany z dostepnoscia bazy), trafia do pliku orders.journal.dead i nie blokuje kolejnych
+@Component
+public class OrderJournal {
+    private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+    private static final String JOURNAL_FILE = "orders.journal";
+    private static final String DEAD_LETTER_FILE = "orders.journal.dead";
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path journalFile;
+    private final Path deadLetterFile;
+    private final int drainBatch;
+    private final BlockingQueue<JournalEntry> pending = new LinkedBlockingQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncFinished = syncLock.newCondition();
+    private FileChannel channel;
+    // pozycje logiczne (bajty zapisane od startu), niezalezne od przycinania pliku
+    private long writtenBytes;
+    private long durableBytes;
+    private boolean syncInProgress;
+    private long appendedEntries;
+    private volatile long drainedEntries;
+    private volatile boolean running;
+    private Thread drainer;
+
+    public OrderJournal(
+            OrderService orderService,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.journal.enabled:false}") boolean enabled,
+            @Value("${app.orders.journal.dir:journal}") String directory,
+            @Value("${app.orders.journal.drain-batch:100}") int drainBatch
+    ) {
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.journalFile = Paths.get(directory).toAbsolutePath().normalize().resolve(JOURNAL_FILE);
+        this.deadLetterFile = journalFile.resolveSibling(DEAD_LETTER_FILE);
+        this.drainBatch = Math.max(1, drainBatch);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(journalFile.getParent());
+        replay();
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(0);
+        running = true;
+        drainer = new Thread(this::runDrainer, "order-journal-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (drainer == null) {
+            return;
+        }
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(30));
+        channel.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OrderEntity append(OrderEntity order) {
+        return append(order, null);
+    }
+
+    // idempotencyKey (moze byc null) zapisywany w tym samym wpisie - drainer zapisuje go w transakcji zamowienia
+    public OrderEntity append(OrderEntity order, OrderIdempotencyKey idempotencyKey) {
+        JournalEntry entry = JournalEntry.of(order, idempotencyKey);
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Nie mozna zapisac zamowienia w dzienniku.", ex);
+        }
+        long end;
+        appendLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            writtenBytes += line.length;
+            end = writtenBytes;
+            appendedEntries++;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Nie mozna zapisac zamowienia w dzienniku.", ex);
+        } finally {
+            appendLock.unlock();
+        }
+        awaitDurable(end);
+        pending.add(entry);
+        return order;
+    }
+
+    // jeden fsync obejmuje wszystkie wpisy zapisane do tej pory; pozostale watki czekaja na jego wynik
+    private void awaitDurable(long position) {
+        while (true) {
+            long target;
+            syncLock.lock();
+            try {
+                while (syncInProgress && durableBytes < position) {
+                    syncFinished.awaitUninterruptibly();
+                }
+                if (durableBytes >= position) {
+                    return;
+                }
+                syncInProgress = true;
+            } finally {
+                syncLock.unlock();
+            }
+            appendLock.lock();
+            try {
+                target = writtenBytes;
+            } finally {
+                appendLock.unlock();
+            }
+            boolean synced = false;
+            try {
+                channel.force(false);
+                synced = true;
+            } catch (IOException ex) {
+                throw new IllegalStateException("Nie mozna utrwalic dziennika zamowien.", ex);
+            } finally {
+                syncLock.lock();
+                try {
+                    syncInProgress = false;
+                    if (synced) {
+                        durableBytes = Math.max(durableBytes, target);
+                    }
+                    syncFinished.signalAll();
+                } finally {
+                    syncLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        List<JournalEntry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                entries.add(objectMapper.readValue(line, JournalEntry.class));
+            } catch (JsonProcessingException ex) {
+                // niedokonczony ostatni wpis po awarii - klient nie dostal potwierdzenia, wiec go pomijamy
+                log.warn("Pominieto uszkodzony wpis dziennika zamowien: {}", line);
+            }
+        }
+        int saved = 0;
+        for (int from = 0; from < entries.size(); from += drainBatch) {
+            saved += save(new ArrayList<>(entries.subList(from, Math.min(entries.size(), from + drainBatch))));
+        }
+        if (!entries.isEmpty()) {
+            log.info("Odtworzono dziennik zamowien: {} wpisow, {} zapisanych w bazie", entries.size(), saved);
+        }
+    }
+
+    // paczka jedna transakcja; gdy baza odrzuca ja na stale, wpisy zapisywane pojedynczo, a odrzucone odkladane
+    // do pliku bledow. Przetworzone wpisy znikaja z listy - blad przejsciowy (baza niedostepna) zostawia w niej
+    // reszte do ponowienia. Zwraca liczbe zamowien zapisanych w bazie.
+    private int save(List<JournalEntry> batch) {
+        try {
+            int saved = orderService.saveJournaledOrders(batch.stream().map(JournalEntry::toOrder).collect(Collectors.toList()),
+                    batch.stream().map(JournalEntry::toIdempotencyKey).collect(Collectors.toList()));
+            batch.clear();
+            return saved;
+        } catch (NonTransientDataAccessException ex) {
+            log.warn("Baza odrzucila paczke {} zamowien z dziennika - zapis pojedynczo", batch.size(), ex);
+        }
+        int saved = 0;
+        for (Iterator<JournalEntry> iterator = batch.iterator(); iterator.hasNext(); ) {
+            JournalEntry entry = iterator.next();
+            try {
+                saved += orderService.saveJournaledOrders(List.of(entry.toOrder()),
+                        Collections.singletonList(entry.toIdempotencyKey()));
+            } catch (NonTransientDataAccessException ex) {
+                deadLetter(entry, ex);
+            }
+            iterator.remove();
+        }
+        return saved;
+    }
+
+    private void deadLetter(JournalEntry entry, NonTransientDataAccessException cause) {
+        try {
+            String line = objectMapper.writeValueAsString(entry) + "\n";
+            Files.writeString(deadLetterFile, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            log.warn("Zamowienie {} z {} odrzucone przez baze - przeniesione do {}",
+                    entry.orderNumber(), entry.orderDate(), deadLetterFile, cause);
+        } catch (IOException ex) {
+            // bez kopii wpis zostaje w dzienniku, wiec paczka bedzie ponawiana jak przy niedostepnej bazie
+            throw new IllegalStateException("Nie mozna zapisac odrzuconego zamowienia do " + deadLetterFile, ex);
+        }
+    }
+
+    private void runDrainer() {
+        List<JournalEntry> batch = new ArrayList<>(drainBatch);
+        while (running || !batch.isEmpty() || !pending.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    JournalEntry first = pending.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        truncateIfDrained();
+                        continue;
+                    }
+                    batch.add(first);
+                    pending.drainTo(batch, drainBatch - 1);
+                }
+                int size = batch.size();
+                try {
+                    save(batch);
+                } finally {
+                    drainedEntries += size - batch.size();
+                }
+            } catch (InterruptedException ex) {
+                // nie przerywamy zapisu - petla konczy sie na fladze running
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    log.warn("Baza niedostepna przy zatrzymaniu - {} zamowien zostanie odtworzonych z dziennika po restarcie",
+                            batch.size() + pending.size(), ex);
+                    return;
+                }
+                log.warn("Przeniesienie {} zamowien z dziennika do bazy nie powiodlo sie, ponowienie za {} ms",
+                        batch.size(), RETRY_DELAY_MILLIS, ex);
+                sleepQuietly(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    // wszystko, co trafilo do dziennika, jest juz w bazie - plik mozna wyczyscic
+    private void truncateIfDrained() {
+        appendLock.lock();
+        try {
+            if (drainedEntries == appendedEntries && channel.size() > 0) {
+                channel.truncate(0);
+            }
+        } catch (IOException ex) {
+            log.warn("Nie mozna wyczyscic dziennika zamowien", ex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record JournalEntry(
+            LocalDate orderDate,
+            Long orderNumber,
+            LocalDateTime createdAt,
+            String type,
+            String status,
+            Long menuVersion,
+            List<JournalItem> items,
+            JournalKey idempotencyKey
+    ) {
+        static JournalEntry of(OrderEntity order, OrderIdempotencyKey idempotencyKey) {
+            List<JournalItem> items = order.getItems().stream()
+                    .map(item -> new JournalItem(item.getMenuItemId(), item.getName(), item.getNameEn(), item.getPrice(), item.getQuantity()))
+                    .collect(Collectors.toList());
+            return new JournalEntry(order.getOrderDate(), order.getOrderNumber(), order.getCreatedAt(), order.getType(),
+                    order.getStatus(), order.getMenuVersion(), items, idempotencyKey == null ? null : JournalKey.of(idempotencyKey));
+        }
+
+        OrderIdempotencyKey toIdempotencyKey() {
+            return idempotencyKey == null ? null : idempotencyKey.toRow();
+        }
+
+        OrderEntity toOrder() {
+            OrderEntity order = new OrderEntity();
+            order.setOrderDate(orderDate);
+            order.setOrderNumber(orderNumber);
+            order.setCreatedAt(createdAt);
+            order.setType(type);
+            order.setStatus(status);
+            order.setMenuVersion(menuVersion);
+            order.setItems(items.stream().map(JournalItem::toOrderItem).collect(Collectors.toList()));
+            return order;
+        }
+    }
+
+    record JournalKey(String key, String requestHash, String response, LocalDateTime createdAt) {
+        static JournalKey of(OrderIdempotencyKey row) {
+            return new JournalKey(row.getIdempotencyKey(), row.getRequestHash(), row.getResponse(), row.getCreatedAt());
+        }
+
+        OrderIdempotencyKey toRow() {
+            return new OrderIdempotencyKey(key, requestHash, response, createdAt);
+        }
+    }
+
+    record JournalItem(Long menuItemId, String name, String nameEn, double price, int quantity) {
+        OrderItem toOrderItem() {
+            OrderItem item = new OrderItem();
+            item.setMenuItemId(menuItemId);
+            item.setName(name);
+            item.setNameEn(nameEn);
+            item.setPrice(price);
+            item.setQuantity(quantity);
+            return item;
+        }
+    }
+}
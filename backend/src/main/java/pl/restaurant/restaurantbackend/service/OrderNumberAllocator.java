@@ -0,0 +1,148 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.restaurant.restaurantbackend.model.DailyOrderCounter;
+import pl.restaurant.restaurantbackend.repository.DailyOrderCounterRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// numery dzienne wydawane z puli zarezerwowanej w DailyOrderCounter (hi/lo);
+// niewykorzystane numery z puli przepadaja przy restarcie, ale nigdy nie sa wydawane ponownie
+// Wywolywac poza transakcja zamowienia: rezerwacja idzie w REQUIRES_NEW, wiec w otwartej transakcji zajmowalaby
+// drugie polaczenie z puli i przy jej wyczerpaniu watki czekalyby na siebie az do timeoutu Hikari
+@Component
+public class OrderNumberAllocator {
+    private static final int MAX_RESERVATION_ATTEMPTS = 3;
+
+    private final DailyOrderCounterRepository dailyOrderCounterRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate reservationTransaction;
+    private final int blockSize;
+    // ReentrantLock zamiast synchronized - watek wirtualny czekajacy na baze nie blokuje watku nosnego
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder reservationNanos = new LongAdder();
+    private volatile NumberBlock currentBlock = NumberBlock.EXHAUSTED;
+
+    @Autowired
+    public OrderNumberAllocator(
+            DailyOrderCounterRepository dailyOrderCounterRepository,
+            OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.number-block-size:20}") int blockSize
+    ) {
+        this.dailyOrderCounterRepository = dailyOrderCounterRepository;
+        this.orderRepository = orderRepository;
+        this.reservationTransaction = new TransactionTemplate(transactionManager);
+        this.reservationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public long next(LocalDate orderDate) {
+        while (true) {
+            NumberBlock block = currentBlock;
+            if (orderDate.equals(block.orderDate())) {
+                long number = block.take();
+                if (number > 0) {
+                    return number;
+                }
+            } else if (block.orderDate() != null && orderDate.isBefore(block.orderDate())) {
+                // spoznione zamowienie sprzed polnocy - nie cofamy puli na poprzedni dzien
+                return reserve(orderDate, 1).first();
+            }
+            refillLock.lock();
+            try {
+                if (currentBlock == block) {
+                    currentBlock = new NumberBlock(reserve(orderDate, blockSize));
+                }
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+
+    public NumberRange nextRange(LocalDate orderDate, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Liczba rezerwowanych numerow musi byc dodatnia.");
+        }
+        return reserve(orderDate, count);
+    }
+
+    public AllocationStats stats() {
+        return new AllocationStats(reservations.sum(), reservationNanos.sum());
+    }
+
+    private NumberRange reserve(LocalDate orderDate, long count) {
+        long started = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return reservationTransaction.execute(status -> reserveInTransaction(orderDate, count));
+                } catch (DataIntegrityViolationException ex) {
+                    // licznik dla tej daty zalozyla rownolegle inna instancja - ponawiamy na istniejacym wierszu
+                    if (attempt >= MAX_RESERVATION_ATTEMPTS) {
+                        throw new IllegalStateException("Nie mozna pobrac licznika zamowien dla daty " + orderDate, ex);
+                    }
+                }
+            }
+        } finally {
+            reservations.increment();
+            reservationNanos.add(System.nanoTime() - started);
+        }
+    }
+
+    private NumberRange reserveInTransaction(LocalDate orderDate, long count) {
+        // nowy licznik startuje od najwyzszego numeru juz zapisanego w tym dniu (dane przykladowe, import,
+        // zamowienia sprzed wprowadzenia licznikow) - inaczej pierwsze numery trafilyby w uk_order_date_number
+        DailyOrderCounter counter = dailyOrderCounterRepository.findByOrderDate(orderDate)
+                .orElseGet(() -> dailyOrderCounterRepository.saveAndFlush(
+                        new DailyOrderCounter(orderDate, orderRepository.findMaxOrderNumber(orderDate))));
+        long first = counter.reserve(count);
+        dailyOrderCounterRepository.saveAndFlush(counter);
+        return new NumberRange(orderDate, first, first + count - 1);
+    }
+
+    public record NumberRange(LocalDate orderDate, long first, long last) {
+        public int size() {
+            return (int) (last - first + 1);
+        }
+    }
+
+    public record AllocationStats(long reservations, long reservationNanos) {}
+
+    private static final class NumberBlock {
+        static final NumberBlock EXHAUSTED = new NumberBlock(null, 1, 0);
+
+        private final LocalDate orderDate;
+        private final AtomicLong next;
+        private final long last;
+
+        NumberBlock(NumberRange range) {
+            this(range.orderDate(), range.first(), range.last());
+        }
+
+        private NumberBlock(LocalDate orderDate, long first, long last) {
+            this.orderDate = orderDate;
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        LocalDate orderDate() {
+            return orderDate;
+        }
+
+        long take() {
+            long number = next.getAndIncrement();
+            return number <= last ? number : -1;
+        }
+    }
+}
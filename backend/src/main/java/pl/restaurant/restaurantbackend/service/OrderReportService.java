@@ -0,0 +1,119 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import org.springframework.stereotype.Component;
+import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.service.OrderService.SalesStats;
+
+// generowanie raportow menedzera (lista zamowien / statystyki, PDF / CSV) z juz znormalizowanych parametrow -
+// wspolne dla pobierania od razu (GET /report) i zadan w tle (ReportJobService)
+@Component
+public class OrderReportService {
+    public static final int MAX_REPORT_ROWS = 5000;
+
+    private final OrderService orderService;
+    private final DailySalesRollup dailySalesRollup;
+
+    public OrderReportService(OrderService orderService, DailySalesRollup dailySalesRollup) {
+        this.orderService = orderService;
+        this.dailySalesRollup = dailySalesRollup;
+    }
+
+    // progress - procent ukonczenia (0-100); dla CSV z lista zamowien liczony z zapisanych wierszy, dla PDF etapami
+    public void write(ReportRequest request, OutputStream output, IntConsumer progress) throws Exception {
+        if (request.streamed()) {
+            writeOrdersCsv(request, output, progress);
+            return;
+        }
+        output.write(render(request, progress));
+    }
+
+    // CSV z lista zamowien idzie strumieniem z kursora bazy, wiec nie ma limitu wierszy ani dlugosci zakresu dat
+    public void writeOrdersCsv(ReportRequest request, OutputStream output, IntConsumer progress) throws IOException {
+        OrderSearchCriteria criteria = request.toCriteria();
+        long total = Math.max(1, orderService.countOrders(criteria));
+        progress.accept(5);
+        orderService.writeOrdersCsv(criteria, output, rows -> progress.accept((int) Math.min(99, 5 + rows * 94 / total)));
+        progress.accept(100);
+    }
+
+    // raporty generowane w calosci w pamieci; CSV z lista zamowien (streamed) tylko przez writeOrdersCsv
+    public byte[] render(ReportRequest request, IntConsumer progress) throws Exception {
+        if (request.streamed()) {
+            throw new IllegalStateException("CSV z lista zamowien jest zapisywany strumieniem (writeOrdersCsv).");
+        }
+        OrderSearchCriteria criteria = request.toCriteria();
+        String dateFrom = request.dateFrom().toString();
+        String dateTo = request.dateTo().toString();
+
+        // statystyki to kilka sum - z rollupu dziennego (cale dni) albo z zapytania agregujacego w bazie (filtr godzin,
+        // historia jeszcze nieuzupelniona w rollupie), wiec bez limitu zamowien i dlugosci zakresu
+        if (request.stats()) {
+            Optional<SalesStats> rolledUp = request.timeFrom() == null && request.timeTo() == null
+                    ? dailySalesRollup.stats(request.dateFrom(), request.dateTo())
+                    : Optional.empty();
+            SalesStats salesStats = rolledUp.orElseGet(() -> orderService.aggregateStats(criteria));
+            progress.accept(50);
+            byte[] body = request.csv()
+                    ? orderService.generateStatsCsv(salesStats).getBytes(StandardCharsets.UTF_8)
+                    : orderService.generateStatsReport(salesStats, "Statystyki zamowien", dateFrom, dateTo);
+            progress.accept(100);
+            return body;
+        }
+
+        List<OrderEntity> orders = orderService.findReportOrders(criteria, MAX_REPORT_ROWS);
+        progress.accept(30);
+        byte[] pdf = orderService.generateOrdersReport(orders, "Raport zamowien", dateFrom, dateTo,
+                timeOrNull(request.timeFrom()), timeOrNull(request.timeTo()));
+        progress.accept(100);
+        return pdf;
+    }
+
+    public static String limitMessage(OrderService.ReportLimitExceededException ex) {
+        return "Za duzy zakres raportu (ponad " + ex.getLimit() + " zamowien). Prosze zwezic filtry.";
+    }
+
+    private String timeOrNull(LocalTime time) {
+        return time != null ? time.toString() : null;
+    }
+
+    // zakres dat juz uzupelniony (bez dat - ostatnie 31 dni), wiec takie same parametry to rowny rekord -
+    // po nim zadania raportow rozpoznaja duplikaty
+    public record ReportRequest(boolean stats, boolean csv, LocalDate dateFrom, LocalDate dateTo, LocalTime timeFrom, LocalTime timeTo) {
+        // tylko CSV z lista zamowien jest pisany prosto do odpowiedzi; reszta generowana w calosci przed wyslaniem
+        public boolean streamed() {
+            return csv && !stats;
+        }
+
+        public String reportType() {
+            return stats ? "stats" : "orders";
+        }
+
+        public String format() {
+            return csv ? "csv" : "pdf";
+        }
+
+        public String filename() {
+            return (stats ? "statystyki." : "zamowienia.") + format();
+        }
+
+        OrderSearchCriteria toCriteria() {
+            OrderSearchCriteria.Builder builder = OrderSearchCriteria.builder().dateFrom(dateFrom).dateTo(dateTo);
+            if (timeFrom != null) {
+                builder.timeFrom(timeFrom);
+            }
+            if (timeTo != null) {
+                builder.timeTo(timeTo);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -1,27 +1,43 @@
 package pl.restaurant.restaurantbackend.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,120 +45,264 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.DigestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
 import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.dto.OrderStatusUpdateRequest;
 import pl.restaurant.restaurantbackend.dto.PublicOrderView;
-import pl.restaurant.restaurantbackend.model.DailyOrderCounter;
-import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
+import pl.restaurant.restaurantbackend.dto.order.mapper.OrderMapper;
 import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderIdempotencyKey;
 import pl.restaurant.restaurantbackend.model.OrderItem;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
 import pl.restaurant.restaurantbackend.model.OrderStatusChange;
-import pl.restaurant.restaurantbackend.repository.DailyOrderCounterRepository;
-import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.model.OrderType;
+import pl.restaurant.restaurantbackend.repository.OrderIdempotencyKeyRepository;
 import pl.restaurant.restaurantbackend.repository.OrderRepository;
-import pl.restaurant.restaurantbackend.repository.OrderStatusChangeRepository;
+import pl.restaurant.restaurantbackend.repository.OrderStatsRepository;
 import pl.restaurant.restaurantbackend.repository.specification.OrderSpecifications;
+import pl.restaurant.restaurantbackend.service.MenuCatalog.MenuEntry;
+import pl.restaurant.restaurantbackend.service.MenuCatalog.MenuSnapshot;
 
 @Service
 public class OrderService {
-    private static final List<String> SCREEN_ORDER_STATUSES = List.of("W realizacji", "Gotowe");
-    private static final List<String> ORDER_STATUSES = List.of("W realizacji", "Gotowe", "Zrealizowane", "Anulowane");
-    private static final Duration ACTIVE_ORDERS_CACHE_TTL = Duration.ofSeconds(2);
-    private static final String ORDERS_REPORT_TEMPLATE = "orders_report.jrxml";
-    private static final String STATS_REPORT_TEMPLATE = "orders_stats_report.jrxml";
     private static final DateTimeFormatter DATE_TIME_REPORT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DateTimeFormatter DATE_REPORT_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final DateTimeFormatter TIME_REPORT_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final String ORDERS_CSV_HEADER = "order_number,created_date,created_time,type,status,total_value,items\n";
+    private static final int CSV_CHUNK_SIZE = 500;
 
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private OrderStatusChangeRepository orderStatusChangeRepository;
+    private MenuCatalog menuCatalog;
 
     @Autowired
-    private MenuItemRepository menuItemRepository;
+    private OrderNumberAllocator orderNumberAllocator;
 
     @Autowired
-    private DailyOrderCounterRepository dailyOrderCounterRepository;
+    private OrderChangeSequence orderChangeSequence;
 
-    private final ConcurrentMap<LocalDate, Object> counterLocks = new ConcurrentHashMap<>();
-    private final Object activeOrdersCacheLock = new Object();
-    private final Object ordersReportTemplateLock = new Object();
-    private final Object statsReportTemplateLock = new Object();
-    private volatile ActiveOrdersCache activeOrdersCache = ActiveOrdersCache.empty();
-    private volatile JasperReport ordersReportTemplate;
-    private volatile JasperReport statsReportTemplate;
+    @Autowired
+    private OrderIdempotencyKeyRepository idempotencyKeyRepository;
 
-    @Transactional
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ActiveOrdersIndex activeOrdersIndex;
+
+    @Autowired
+    private ReportAssets reportAssets;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // numer nadawany przed transakcja zamowienia: uzupelnienie puli (OrderNumberAllocator, REQUIRES_NEW) bierze
+    // wtedy jedyne polaczenie watku, a nie drugie obok trzymanego przez zamowienie - przy pelnej puli polaczen
+    // watki nie czekaja na siebie nawzajem az do timeoutu Hikari. Numer z wycofanej transakcji przepada jak z puli.
     public OrderEntity createOrder(CreateOrderRequest request) {
-        if (request == null || request.items() == null || request.items().isEmpty()) {
-            throw new IllegalArgumentException("Zamowienie musi zawierac przynajmniej jedna pozycje.");
-        }
+        return createOrder(request, null);
+    }
+
+    // keyRow (OrderIdempotencyService) buduje wiersz order_idempotency_key z zapisanego zamowienia; wiersz trafia do
+    // tej samej transakcji, wiec blad zapisu klucza wycofuje tez zamowienie
+    public OrderEntity createOrder(CreateOrderRequest request, Function<OrderEntity, OrderIdempotencyKey> keyRow) {
+        OrderEntity order = prepareOrder(request);
+        return transactionTemplate.execute(status -> {
+            order.setChangeSeq(orderChangeSequence.next());
+            OrderEntity saved = orderRepository.save(order);
+            if (keyRow != null) {
+                idempotencyKeyRepository.save(keyRow.apply(saved));
+            }
+            ordersChanged(List.of(saved));
+            salesChanged(SalesTally.byDay(List.of(saved)));
+            return saved;
+        });
+    }
 
+    // zamowienie z nadanym numerem, ale jeszcze niezapisane - dla trybu z dziennikiem (OrderJournal)
+    public OrderEntity prepareOrder(CreateOrderRequest request) {
+        MenuSnapshot menu = menuSnapshotFor(Collections.singletonList(request));
+        List<OrderItem> orderItems = buildOrderItems(request, menu);
         LocalDate today = LocalDate.now();
-        DailyOrderCounter counter = dailyOrderCounterRepository.findByOrderDate(today).orElse(null);
-        if (counter == null) {
-            Object lock = counterLocks.computeIfAbsent(today, date -> new Object());
+        return newOrder(request, orderItems, menu, today, orderNumberAllocator.next(today));
+    }
+
+    // zapis zamowien przeniesionych z dziennika; pomija te, ktore juz sa w bazie (ponowne odtworzenie dziennika)
+    public int saveJournaledOrders(List<OrderEntity> orders) {
+        return saveJournaledOrders(orders, Collections.nCopies(orders.size(), null));
+    }
+
+    // keys - klucze idempotencji w kolejnosci zamowien (null bez naglowka); klucz zapisywany razem ze swoim zamowieniem,
+    // a zamowienie juz obecne w bazie ma juz zapisany klucz z tej samej transakcji
+    @Transactional
+    public int saveJournaledOrders(List<OrderEntity> orders, List<OrderIdempotencyKey> keys) {
+        Map<LocalDate, Set<Long>> existing = new HashMap<>();
+        orders.stream()
+                .collect(Collectors.groupingBy(OrderEntity::getOrderDate,
+                        Collectors.mapping(OrderEntity::getOrderNumber, Collectors.toList())))
+                .forEach((orderDate, numbers) -> existing.put(orderDate,
+                        new HashSet<>(orderRepository.findExistingOrderNumbers(orderDate, numbers))));
+        List<OrderEntity> missing = new ArrayList<>(orders.size());
+        List<OrderIdempotencyKey> missingKeys = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            OrderEntity order = orders.get(i);
+            if (existing.get(order.getOrderDate()).add(order.getOrderNumber())) {
+                // numer zmiany dopiero przy zapisie do bazy - wczesniej zamowienie nie jest widoczne w GET /api/orders/changes
+                order.setChangeSeq(orderChangeSequence.next());
+                missing.add(order);
+                if (keys.get(i) != null) {
+                    missingKeys.add(keys.get(i));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<OrderEntity> saved = orderRepository.saveAll(missing);
+            idempotencyKeyRepository.saveAll(missingKeys);
+            ordersChanged(saved);
+            salesChanged(SalesTally.byDay(saved));
+        }
+        return missing.size();
+    }
+
+    // jak createOrder - zakres numerow rezerwowany przed transakcja zapisu paczki
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Brak zamowien do zapisania.");
+        }
+        return createOrders(requests, Collections.nCopies(requests.size(), null));
+    }
+
+    // keyRows - jak w createOrder, w kolejnosci zadan (null bez klucza); klucze zapisywane w transakcji paczki
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests,
+                                               List<Function<OrderEntity, OrderIdempotencyKey>> keyRows) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Brak zamowien do zapisania.");
+        }
+        MenuSnapshot menu = menuSnapshotFor(requests);
+        List<List<OrderItem>> itemsPerRequest = new ArrayList<>(requests.size());
+        List<String> errors = new ArrayList<>(requests.size());
+        int validCount = 0;
+        for (CreateOrderRequest request : requests) {
             try {
-                synchronized (lock) {
-                    counter = dailyOrderCounterRepository.findByOrderDate(today)
-                            .orElseGet(() -> dailyOrderCounterRepository.saveAndFlush(new DailyOrderCounter(today, 0L)));
+                itemsPerRequest.add(buildOrderItems(request, menu));
+                errors.add(null);
+                validCount++;
+            } catch (IllegalArgumentException ex) {
+                itemsPerRequest.add(null);
+                errors.add(ex.getMessage());
+            }
+        }
+
+        List<OrderEntity> orders = new ArrayList<>(validCount);
+        if (validCount > 0) {
+            LocalDate today = LocalDate.now();
+            long nextNumber = orderNumberAllocator.nextRange(today, validCount).first();
+            List<Function<OrderEntity, OrderIdempotencyKey>> orderKeyRows = new ArrayList<>(validCount);
+            for (int i = 0; i < requests.size(); i++) {
+                if (itemsPerRequest.get(i) != null) {
+                    orders.add(newOrder(requests.get(i), itemsPerRequest.get(i), menu, today, nextNumber++));
+                    orderKeyRows.add(keyRows.get(i));
+                }
+            }
+            List<OrderEntity> prepared = orders;
+            orders = transactionTemplate.execute(status -> {
+                prepared.forEach(order -> order.setChangeSeq(orderChangeSequence.next()));
+                // identyfikatory z sekwencji pozwalaja Hibernate wyslac inserty paczkami (hibernate.jdbc.batch_size)
+                List<OrderEntity> saved = orderRepository.saveAll(prepared);
+                List<OrderIdempotencyKey> keys = new ArrayList<>();
+                for (int i = 0; i < saved.size(); i++) {
+                    if (orderKeyRows.get(i) != null) {
+                        keys.add(orderKeyRows.get(i).apply(saved.get(i)));
+                    }
+                }
+                idempotencyKeyRepository.saveAll(keys);
+                ordersChanged(saved);
+                salesChanged(SalesTally.byDay(saved));
+                return saved;
+            });
+        }
+
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        int savedIndex = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (itemsPerRequest.get(i) != null) {
+                results.add(BatchOrderResult.created(orders.get(savedIndex++)));
+            } else {
+                results.add(BatchOrderResult.rejected(errors.get(i)));
+            }
+        }
+        return results;
+    }
+
+    private MenuSnapshot menuSnapshotFor(List<CreateOrderRequest> requests) {
+        Set<Long> menuItemIds = new HashSet<>();
+        for (CreateOrderRequest request : requests) {
+            if (request == null || request.items() == null) {
+                continue;
+            }
+            for (CreateOrderRequest.Item itemRequest : request.items()) {
+                if (itemRequest != null && itemRequest.menuItemId() != null) {
+                    menuItemIds.add(itemRequest.menuItemId());
                 }
-            } finally {
-                counterLocks.remove(today, lock);
             }
         }
-        if (counter == null) {
-            throw new IllegalStateException("Nie mozna pobrac licznika zamowien dla daty " + today);
+        MenuSnapshot menu = menuCatalog.current();
+        if (!menu.containsAll(menuItemIds)) {
+            // pozycja dodana poza MenuManagerController (np. seed, inna instancja) - jednorazowo odswiezamy migawke
+            menu = menuCatalog.refresh();
         }
-        Long todayNumber = counter.nextValue();
-        dailyOrderCounterRepository.saveAndFlush(counter);
+        return menu;
+    }
 
+    private List<OrderItem> buildOrderItems(CreateOrderRequest request, MenuSnapshot menu) {
+        if (request == null || request.items() == null || request.items().isEmpty()) {
+            throw new IllegalArgumentException("Zamowienie musi zawierac przynajmniej jedna pozycje.");
+        }
         List<CreateOrderRequest.Item> itemRequests = request.items();
-        List<Long> menuItemIds = new ArrayList<>(itemRequests.size());
         for (CreateOrderRequest.Item itemRequest : itemRequests) {
             if (itemRequest == null || itemRequest.menuItemId() == null) {
                 throw new IllegalArgumentException("Brak identyfikatora pozycji menu.");
             }
-            menuItemIds.add(itemRequest.menuItemId());
-        }
-
-        Map<Long, MenuItem> menuItemsById = new HashMap<>();
-        for (MenuItem menuItem : menuItemRepository.findAllById(menuItemIds)) {
-            menuItemsById.put(menuItem.getId(), menuItem);
         }
 
-        List<OrderItem> orderItems = new ArrayList<>();
+        List<OrderItem> orderItems = new ArrayList<>(itemRequests.size());
         for (CreateOrderRequest.Item itemRequest : itemRequests) {
-            MenuItem menuItem = menuItemsById.get(itemRequest.menuItemId());
+            MenuEntry menuItem = menu.find(itemRequest.menuItemId());
             if (menuItem == null) {
                 throw new IllegalArgumentException("Pozycja menu nie istnieje.");
             }
-            if (!menuItem.isActive()) {
+            if (!menuItem.active()) {
                 throw new IllegalArgumentException("Pozycja menu jest aktualnie niedostepna.");
             }
             int quantity = itemRequest.quantity() != null && itemRequest.quantity() > 0 ? itemRequest.quantity() : 1;
             OrderItem orderItem = new OrderItem();
-            orderItem.setMenuItemId(menuItem.getId());
-            orderItem.setName(menuItem.getName());
-            orderItem.setNameEn(menuItem.getNameEn());
-            orderItem.setPrice(menuItem.getPrice());
+            orderItem.setMenuItemId(menuItem.id());
+            orderItem.setName(menuItem.name());
+            orderItem.setNameEn(menuItem.nameEn());
+            orderItem.setPrice(menuItem.price());
             orderItem.setQuantity(quantity);
             orderItems.add(orderItem);
         }
+        return orderItems;
+    }
 
+    private OrderEntity newOrder(CreateOrderRequest request, List<OrderItem> orderItems, MenuSnapshot menu, LocalDate orderDate, long orderNumber) {
         OrderEntity order = new OrderEntity();
-        order.setOrderNumber(todayNumber);
-        order.setOrderDate(today);
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
         order.setCreatedAt(LocalDateTime.now());
-        order.setStatus("W realizacji");
-        order.setType(normalizeOrderType(request.type()));
+        order.setOrderStatus(OrderStatus.IN_PROGRESS);
+        order.setOrderType(normalizeOrderType(request.type()));
         order.setItems(orderItems);
-        OrderEntity saved = orderRepository.save(order);
-        invalidateActiveOrdersCache();
-        return saved;
+        order.setMenuVersion(menu.version());
+        return order;
     }
 
     public Page<OrderEntity> findOrders(OrderSearchCriteria criteria, Pageable pageable) {
@@ -159,6 +319,32 @@ public class OrderService {
         return orderRepository.findAll(spec, effectivePageable);
     }
 
+    // strona listy jako DTO w stalej liczbie zapytan: strona zamowien (i licznik), potem pozycje i historia
+    // calej strony po jednym zapytaniu - bez doczytywania kolekcji zamowienie po zamowieniu przy mapowaniu
+    @Transactional(readOnly = true)
+    public Page<OrderDto> findOrderDtos(OrderSearchCriteria criteria, Pageable pageable) {
+        Page<OrderEntity> page = findOrders(criteria, pageable);
+        fetchDetails(page.getContent());
+        return page.map(OrderMapper::toDto);
+    }
+
+    // stronicowanie "seek" po (orderDate DESC, orderNumber DESC): strona zaczyna sie za ostatnim zamowieniem
+    // poprzedniej, wiec dalekie strony kosztuja tyle co pierwsza; COUNT(*) tylko na zadanie (includeTotal)
+    @Transactional(readOnly = true)
+    public OrderSlice findOrderDtosAfter(OrderSearchCriteria criteria, OrderCursor after, int size, boolean includeTotal) {
+        Specification<OrderEntity> spec = OrderSpecifications.withCriteria(criteria);
+        Specification<OrderEntity> pageSpec = after == null
+                ? spec
+                : spec.and(OrderSpecifications.before(after.orderDate(), after.orderNumber()));
+        // jeden wiersz ponad strone mowi, czy jest nastepna - bez osobnego zapytania
+        List<OrderEntity> rows = orderRepository.findBy(pageSpec, query -> query.sortBy(defaultSort()).limit(size + 1).all());
+        List<OrderEntity> content = rows.size() > size ? rows.subList(0, size) : rows;
+        fetchDetails(content);
+        String nextCursor = rows.size() > size ? OrderCursor.of(content.get(content.size() - 1)).encode() : null;
+        Long total = includeTotal ? orderRepository.count(spec) : null;
+        return new OrderSlice(content.stream().map(OrderMapper::toDto).collect(Collectors.toList()), nextCursor, total);
+    }
+
     public List<OrderEntity> findOrders(OrderSearchCriteria criteria) {
         Specification<OrderEntity> spec = OrderSpecifications.withCriteria(criteria);
         return orderRepository.findAll(spec, defaultSort());
@@ -177,18 +363,35 @@ public class OrderService {
         return page.getContent();
     }
 
+    // lista do PDF poza watkiem zadania HTTP (zadania raportow) - pozycje i historia statusow doczytane w transakcji,
+    // wiec wypelnianie szablonu po jej zakonczeniu nie siega juz do bazy
+    @Transactional(readOnly = true)
+    public List<OrderEntity> findReportOrders(OrderSearchCriteria criteria, int maxRows) {
+        List<OrderEntity> orders = findOrders(criteria, maxRows);
+        fetchDetails(orders);
+        return orders;
+    }
+
+    public long countOrders(OrderSearchCriteria criteria) {
+        return orderRepository.count(OrderSpecifications.withCriteria(criteria));
+    }
+
+    // zapytania z fetch join uzupelniaja kolekcje zamowien juz obecnych w kontekscie utrwalania
+    private void fetchDetails(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Long> ids = orders.stream().map(OrderEntity::getId).collect(Collectors.toList());
+        orderRepository.findWithItemsByIdIn(ids);
+        orderRepository.findWithStatusHistoryByIdIn(ids);
+    }
+
     private Sort defaultSort() {
         return Sort.by(Sort.Direction.DESC, "orderDate").and(Sort.by(Sort.Direction.DESC, "orderNumber"));
     }
 
-    private String normalizeOrderType(String rawType) {
-        if (rawType == null) {
-            return "na miejscu";
-        }
-        if ("na wynos".equalsIgnoreCase(rawType.trim())) {
-            return "na wynos";
-        }
-        return "na miejscu";
+    private OrderType normalizeOrderType(String rawType) {
+        return OrderType.find(rawType).orElse(OrderType.DINE_IN);
     }
 
     public byte[] generateOrdersReport(List<OrderEntity> orders, String title, String dateFrom, String dateTo) throws Exception {
@@ -196,8 +399,8 @@ public class OrderService {
     }
 
     public byte[] generateOrdersReport(List<OrderEntity> orders, String title, String dateFrom, String dateTo, String timeFrom, String timeTo) throws Exception {
-        JasperReport jasperReport = getOrdersReportTemplate();
-        Map<String, Object> params = new HashMap<>();
+        JasperReport jasperReport = reportAssets.ordersTemplate();
+        Map<String, Object> params = reportAssets.parameters();
         params.put("REPORT_TITLE", title);
         params.put("REPORT_DATE_FROM", dateFrom);
         params.put("REPORT_DATE_TO", dateTo);
@@ -226,17 +429,19 @@ public class OrderService {
     }
 
         public byte[] generateStatsReport(List<OrderEntity> orders, String title, String dateFrom, String dateTo, String timeFrom, String timeTo) throws Exception {
-        JasperReport jasperReport = getStatsReportTemplate();
-        Map<String, Object> params = new HashMap<>();
+        SalesTally tally = new SalesTally();
+        filterOrdersByTime(orders, timeFrom, timeTo).forEach(tally::addOrder);
+        return generateStatsReport(tally.toStats(), title, dateFrom, dateTo);
+    }
+
+    // statystyki juz policzone (np. z rollupu dziennego) - PDF nie zalezy od liczby zamowien w zakresie
+    public byte[] generateStatsReport(SalesStats stats, String title, String dateFrom, String dateTo) throws Exception {
+        JasperReport jasperReport = reportAssets.statsTemplate();
+        Map<String, Object> params = reportAssets.parameters();
         params.put("REPORT_TITLE", title);
         params.put("REPORT_DATE_FROM", dateFrom);
         params.put("REPORT_DATE_TO", dateTo);
-        if (orders == null) {
-            orders = List.of();
-        }
-        List<OrderEntity> filtered = filterOrdersByTime(orders, timeFrom, timeTo);
-        List<Map<String, String>> stats = buildStatsRows(filtered);
-        JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(stats, false);
+        JRBeanCollectionDataSource ds = new JRBeanCollectionDataSource(buildStatsRows(stats), false);
         JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, params, ds);
         return JasperExportManager.exportReportToPdf(jasperPrint);
     }
@@ -298,23 +503,18 @@ public class OrderService {
         return row;
     }
 
-    private List<Map<String, String>> buildStatsRows(List<OrderEntity> orders) {
+    private List<Map<String, String>> buildStatsRows(SalesStats salesStats) {
         List<Map<String, String>> stats = new ArrayList<>();
-        stats.add(statRow("Liczba zamowien", String.valueOf(orders.size())));
-        Map<String, Long> productCount = orders.stream()
-                .flatMap(o -> o.getItems().stream())
-                .collect(Collectors.groupingBy(OrderItem::getName, Collectors.summingLong(OrderItem::getQuantity)));
-        Optional<Map.Entry<String, Long>> topProduct = productCount.entrySet().stream().max(Map.Entry.comparingByValue());
-        stats.add(statRow("Najczesciej kupowany produkt", topProduct.map(Map.Entry::getKey).orElse("Brak")));
-        double total = orders.stream()
-                .flatMap(o -> o.getItems().stream())
-                .mapToDouble(i -> i.getPrice() * i.getQuantity())
-                .sum();
-        stats.add(statRow("Suma wartosci zamowien", formatCurrency(total)));
-        double average = orders.isEmpty() ? 0 : total / orders.size();
-        stats.add(statRow("Srednia wartosc zamowienia", formatCurrency(average)));
-        List<Long> durations = collectDurationsInSeconds(orders);
-        stats.add(statRow("Sredni czas obslugi", formatAverageDuration(durations)));
+        stats.add(statRow("Liczba zamowien", String.valueOf(salesStats.orders())));
+        stats.add(statRow("Najczesciej kupowany produkt", salesStats.topProduct() != null ? salesStats.topProduct() : "Brak"));
+        stats.add(statRow("Suma wartosci zamowien", formatCurrency(salesStats.revenue())));
+        stats.add(statRow("Srednia wartosc zamowienia", formatCurrency(salesStats.averageOrderValue())));
+        String averageDuration = "-";
+        if (salesStats.serviceCount() > 0) {
+            long roundedSeconds = Math.round((double) salesStats.serviceSeconds() / salesStats.serviceCount());
+            averageDuration = String.format("%d min %02d s", roundedSeconds / 60, roundedSeconds % 60);
+        }
+        stats.add(statRow("Sredni czas obslugi", averageDuration));
         return stats;
     }
 
@@ -371,52 +571,122 @@ public class OrderService {
 
     public String generateOrdersCsv(List<OrderEntity> orders, String dateFrom, String dateTo, String timeFrom, String timeTo) {
         List<OrderEntity> filteredOrders = filterOrdersByTime(orders, timeFrom, timeTo);
-        StringBuilder sb = new StringBuilder();
-        sb.append("order_number,created_date,created_time,type,status,total_value,items\n");
+        StringBuilder sb = new StringBuilder(ORDERS_CSV_HEADER);
         for (OrderEntity order : filteredOrders) {
-            String createdDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate().toString() : "";
-            String createdTime = order.getCreatedAt() != null ? order.getCreatedAt().toLocalTime().toString().substring(0, 5) : "";
-            double total = order.getItems().stream().mapToDouble(i -> i.getPrice() * i.getQuantity()).sum();
-            String items = order.getItems().stream()
-                    .map(i -> i.getName() + " x " + i.getQuantity() + " (" + formatMoney(i.getPrice()) + ")")
-                    .collect(Collectors.joining(" | "));
-            sb.append(valueOrEmpty(order.getOrderNumber()))
-                    .append(',').append(escapeCsv(createdDate))
-                    .append(',').append(escapeCsv(createdTime))
-                    .append(',').append(escapeCsv(order.getType()))
-                    .append(',').append(escapeCsv(order.getStatus()))
-                    .append(',').append(escapeCsv(formatMoney(total)))
-                    .append(',').append(escapeCsv(items))
-                    .append('\n');
+            sb.append(ordersCsvLine(order));
         }
         return sb.toString();
     }
 
     public String generateStatsCsv(List<OrderEntity> orders, String dateFrom, String dateTo, String timeFrom, String timeTo) {
-        List<OrderEntity> filteredOrders = filterOrdersByTime(orders, timeFrom, timeTo);
+        SalesTally tally = new SalesTally();
+        filterOrdersByTime(orders, timeFrom, timeTo).forEach(tally::addOrder);
+        return generateStatsCsv(tally.toStats());
+    }
+
+    public String generateStatsCsv(SalesStats stats) {
         StringBuilder sb = new StringBuilder();
         sb.append("metric,value\n");
-        sb.append("Liczba zamowien,").append(filteredOrders.size()).append('\n');
-        Map<String, Long> productCount = filteredOrders.stream()
-                .flatMap(o -> o.getItems().stream())
-                .collect(Collectors.groupingBy(OrderItem::getName, Collectors.summingLong(OrderItem::getQuantity)));
-        Optional<Map.Entry<String, Long>> topProduct = productCount.entrySet().stream().max(Map.Entry.comparingByValue());
-        sb.append("Najczesciej kupowany produkt,").append(escapeCsv(topProduct.map(Map.Entry::getKey).orElse("Brak"))).append('\n');
-        double total = filteredOrders.stream().flatMap(o -> o.getItems().stream()).mapToDouble(i -> i.getPrice() * i.getQuantity()).sum();
-        sb.append("Suma wartosci zamowien,").append(formatMoney(total)).append('\n');
-        double avg = filteredOrders.isEmpty() ? 0 : total / filteredOrders.size();
-        sb.append("Srednia wartosc zamowienia,").append(formatMoney(avg)).append('\n');
-        List<Long> durations = filteredOrders.stream()
-                .filter(o -> o.getCreatedAt() != null && o.getFinishedAt() != null)
-                .map(o -> java.time.Duration.between(o.getCreatedAt(), o.getFinishedAt()).getSeconds())
-                .collect(Collectors.toList());
-        double avgSec = durations.isEmpty() ? 0 : durations.stream().mapToLong(Long::longValue).average().orElse(0);
+        sb.append("Liczba zamowien,").append(stats.orders()).append('\n');
+        sb.append("Najczesciej kupowany produkt,").append(escapeCsv(stats.topProduct() != null ? stats.topProduct() : "Brak")).append('\n');
+        sb.append("Suma wartosci zamowien,").append(formatMoney(stats.revenue())).append('\n');
+        sb.append("Srednia wartosc zamowienia,").append(formatMoney(stats.averageOrderValue())).append('\n');
+        double avgSec = stats.serviceCount() == 0 ? 0 : (double) stats.serviceSeconds() / stats.serviceCount();
         long avgMin = (long) (avgSec / 60);
         long avgRemSec = (long) (avgSec % 60);
-        sb.append("Sredni czas obslugi,").append(durations.isEmpty() ? "-" : String.format("%d min %02d s", avgMin, avgRemSec)).append('\n');
+        sb.append("Sredni czas obslugi,").append(stats.serviceCount() == 0 ? "-" : String.format("%d min %02d s", avgMin, avgRemSec)).append('\n');
         return sb.toString();
     }
 
+    // eksport CSV bez limitu wierszy: zamowienia czytane kursorem tylko do przodu i zapisywane od razu do odpowiedzi,
+    // kontekst utrwalania czyszczony co paczke - zuzycie pamieci nie zalezy od liczby zamowien
+    @Transactional(readOnly = true)
+    public void writeOrdersCsv(OrderSearchCriteria criteria, OutputStream output) throws IOException {
+        writeOrdersCsv(criteria, output, rows -> {});
+    }
+
+    // rowsWritten - liczba zapisanych juz wierszy po kazdej paczce (postep zadania raportu)
+    @Transactional(readOnly = true)
+    public void writeOrdersCsv(OrderSearchCriteria criteria, OutputStream output, LongConsumer rowsWritten) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(ORDERS_CSV_HEADER);
+        long[] written = {0};
+        scrollOrders(criteria, chunk -> {
+            for (OrderEntity order : chunk) {
+                writer.write(ordersCsvLine(order));
+            }
+            written[0] += chunk.size();
+            rowsWritten.accept(written[0]);
+        });
+        writer.flush();
+    }
+
+    // statystyki dowolnych filtrow (takze godzin) liczone w bazie - do pamieci trafiaja tylko sumy i najczestszy produkt
+    @Transactional(readOnly = true)
+    public SalesStats aggregateStats(OrderSearchCriteria criteria) {
+        OrderStatsRepository.SalesAggregate aggregate = orderRepository.aggregateSales(OrderSpecifications.withCriteria(criteria), 1);
+        String topProduct = aggregate.topProducts().isEmpty() ? null : aggregate.topProducts().get(0).name();
+        return new SalesStats(aggregate.orders(), aggregate.revenue(), topProduct, aggregate.serviceCount(), aggregate.serviceSeconds());
+    }
+
+    // sumy dzienne liczone od nowa z zamowien - odbudowa rollupu (DailySalesRollup) kursorem, bez calej historii w pamieci
+    @Transactional(readOnly = true)
+    public Map<LocalDate, SalesTally> collectDailySales(LocalDate from, LocalDate to) throws IOException {
+        Map<LocalDate, SalesTally> days = new TreeMap<>();
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().dateFrom(from).dateTo(to).build();
+        scrollOrders(criteria, chunk -> chunk.forEach(order -> SalesTally.forDay(days, order.getOrderDate()).addOrder(order)));
+        return days;
+    }
+
+    // pozycje doczytywane jednym zapytaniem na paczke (kursor zostaje otwarty - na MySQL wymaga useCursorFetch=true)
+    private void scrollOrders(OrderSearchCriteria criteria, OrderChunkConsumer consumer) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderEntity> query = cb.createQuery(OrderEntity.class);
+        Root<OrderEntity> root = query.from(OrderEntity.class);
+        query.where(OrderSpecifications.withCriteria(criteria).toPredicate(root, query, cb));
+        query.orderBy(cb.desc(root.get("orderDate")), cb.desc(root.get("orderNumber")));
+        List<OrderEntity> chunk = new ArrayList<>(CSV_CHUNK_SIZE);
+        try (Stream<OrderEntity> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, CSV_CHUNK_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<OrderEntity> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CSV_CHUNK_SIZE) {
+                    writeChunk(chunk, consumer);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, consumer);
+            }
+        }
+    }
+
+    private void writeChunk(List<OrderEntity> chunk, OrderChunkConsumer consumer) throws IOException {
+        orderRepository.findWithItemsByIdIn(chunk.stream().map(OrderEntity::getId).collect(Collectors.toList()));
+        consumer.accept(chunk);
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    private String ordersCsvLine(OrderEntity order) {
+        String createdDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate().toString() : "";
+        String createdTime = order.getCreatedAt() != null ? order.getCreatedAt().toLocalTime().toString().substring(0, 5) : "";
+        double total = order.getItems().stream().mapToDouble(i -> i.getPrice() * i.getQuantity()).sum();
+        String items = order.getItems().stream()
+                .map(i -> i.getName() + " x " + i.getQuantity() + " (" + formatMoney(i.getPrice()) + ")")
+                .collect(Collectors.joining(" | "));
+        return valueOrEmpty(order.getOrderNumber())
+                + ',' + escapeCsv(createdDate)
+                + ',' + escapeCsv(createdTime)
+                + ',' + escapeCsv(order.getType())
+                + ',' + escapeCsv(order.getStatus())
+                + ',' + escapeCsv(formatMoney(total))
+                + ',' + escapeCsv(items)
+                + '\n';
+    }
+
     private String escapeCsv(String value) {
         if (value == null) {
             return "";
@@ -436,127 +706,197 @@ public class OrderService {
         return String.format(Locale.US, "%.2f", value);
     }
 
-    private JasperReport getOrdersReportTemplate() {
-        JasperReport cached = ordersReportTemplate;
-        if (cached != null) {
-            return cached;
-        }
-        synchronized (ordersReportTemplateLock) {
-            cached = ordersReportTemplate;
-            if (cached == null) {
-                cached = compileReport(ORDERS_REPORT_TEMPLATE);
-                ordersReportTemplate = cached;
-            }
-            return cached;
-        }
+    // zmiana statusu i DTO w jednej jednostce pracy: jedno zapytanie o zamowienie z pozycjami,
+    // wpis historii przez kaskade, bez ponownego findById w kontrolerze
+    @Transactional
+    public OrderDto changeOrderStatus(Long orderId, String newStatus) {
+        return changeOrderStatus(orderId, newStatus, null);
+    }
+
+    // expectedVersion z naglowka If-Match; null = bez warunku (rownolegly zapis i tak wykryje @Version)
+    @Transactional
+    public OrderDto changeOrderStatus(Long orderId, String newStatus, Long expectedVersion) {
+        OrderStatus status = OrderStatus.fromLabel(newStatus);
+        OrderEntity order = orderRepository.findWithItemsById(orderId).orElseThrow();
+        checkVersion(order, expectedVersion);
+        Map<LocalDate, SalesTally> sales = new TreeMap<>();
+        applyStatus(order, status, LocalDateTime.now(), sales);
+        ordersChanged(List.of(order));
+        salesChanged(sales);
+        // flush przed mapowaniem - DTO ma juz wersje po zapisie, ta sama co w zmianach wysylanych stanowiskom
+        orderRepository.flush();
+        return OrderMapper.toDto(order);
     }
 
-    private JasperReport getStatsReportTemplate() {
-        JasperReport cached = statsReportTemplate;
-        if (cached != null) {
-            return cached;
+    @Transactional
+    public List<OrderDto> changeOrderStatuses(List<OrderStatusUpdateRequest> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("Brak zmian statusu do zapisania.");
         }
-        synchronized (statsReportTemplateLock) {
-            cached = statsReportTemplate;
-            if (cached == null) {
-                cached = compileReport(STATS_REPORT_TEMPLATE);
-                statsReportTemplate = cached;
+        for (OrderStatusUpdateRequest update : updates) {
+            if (update == null || update.id() == null) {
+                throw new IllegalArgumentException("Brak identyfikatora zamowienia.");
+            }
+            OrderStatus.fromLabel(update.status());
+        }
+        Set<Long> ids = updates.stream().map(OrderStatusUpdateRequest::id).collect(Collectors.toSet());
+        Map<Long, OrderEntity> orders = orderRepository.findWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(OrderEntity::getId, order -> order));
+        for (Long id : ids) {
+            if (!orders.containsKey(id)) {
+                throw new NoSuchElementException("Zamowienie " + id + " nie istnieje.");
             }
-            return cached;
         }
+        for (OrderStatusUpdateRequest update : updates) {
+            checkVersion(orders.get(update.id()), update.version());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<LocalDate, SalesTally> sales = new TreeMap<>();
+        List<OrderDto> results = new ArrayList<>(updates.size());
+        // kolejnosc z zadania; powtorzone id dostaje kolejne wpisy historii, jak przy osobnych wywolaniach
+        for (OrderStatusUpdateRequest update : updates) {
+            applyStatus(orders.get(update.id()), OrderStatus.fromLabel(update.status()), now, sales);
+        }
+        ordersChanged(orders.values());
+        salesChanged(sales);
+        orderRepository.flush();
+        for (OrderStatusUpdateRequest update : updates) {
+            results.add(OrderMapper.toDto(orders.get(update.id())));
+        }
+        return results;
+    }
+
+    // zamowienia utworzone lub zmienione po kursorze "since"; zwracany kursor nie wyprzedza otwartych transakcji
+    @Transactional(readOnly = true)
+    public OrderChanges findChangesSince(long since, int limit) {
+        long upTo = orderChangeSequence.safeCursor();
+        if (since >= upTo) {
+            return new OrderChanges(List.of(), upTo);
+        }
+        List<OrderRepository.OrderChangeRef> changes = orderRepository.findChanges(since, upTo, PageRequest.of(0, limit));
+        if (changes.isEmpty()) {
+            return new OrderChanges(List.of(), upTo);
+        }
+        List<Long> ids = changes.stream().map(OrderRepository.OrderChangeRef::getId).collect(Collectors.toList());
+        List<OrderEntity> orders = new ArrayList<>(orderRepository.findWithItemsByIdIn(ids));
+        orderRepository.findWithStatusHistoryByIdIn(ids);
+        orders.sort(Comparator.comparing(OrderEntity::getChangeSeq));
+        // niepelna strona oznacza, ze klient ma juz wszystko do upTo; pelna - kontynuuje od ostatniej zwroconej zmiany
+        long cursor = changes.size() < limit ? upTo : changes.get(changes.size() - 1).getChangeSeq();
+        return new OrderChanges(OrderMapper.toDtoList(orders), cursor);
+    }
+
+    // aktualny stan zmienionych zamowien dla kanalu stanowisk kuchni - jedno zapytanie na zmiane, niezaleznie od liczby stanowisk
+    @Transactional(readOnly = true)
+    public List<OrderDto> findOrderDtos(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<OrderEntity> orders = new ArrayList<>(orderRepository.findWithItemsByIdIn(ids));
+        orderRepository.findWithStatusHistoryByIdIn(ids);
+        orders.sort(Comparator.comparing(OrderEntity::getOrderDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(OrderEntity::getOrderNumber, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return OrderMapper.toDtoList(orders);
     }
 
-    private JasperReport compileReport(String resourcePath) {
-        try (InputStream stream = new ClassPathResource(resourcePath).getInputStream()) {
-            return JasperCompileManager.compileReport(stream);
-        } catch (IOException | JRException ex) {
-            throw new IllegalStateException("Nie mozna skompilowac szablonu raportu: " + resourcePath, ex);
-        }
+    public long currentChangeCursor() {
+        return orderChangeSequence.safeCursor();
     }
 
-    @Transactional
-    public void changeOrderStatus(Long orderId, String newStatus) {
-        OrderEntity order = orderRepository.findById(orderId).orElseThrow();
-        if (!ORDER_STATUSES.contains(newStatus)) {
-            throw new IllegalArgumentException("Nieznany status zamowienia: " + newStatus);
+    private void checkVersion(OrderEntity order, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new OrderVersionConflictException(order.getId());
         }
-        order.setStatus(newStatus);
+    }
+
+    // sales zbiera zmiane czasu obslugi dla rollupu: zakonczenie dolicza zamowienie, cofniecie lub anulowanie
+    // zrealizowanego je odejmuje (liczba i wartosc zamowien nie zaleza od statusu, jak w raporcie)
+    private void applyStatus(OrderEntity order, OrderStatus newStatus, LocalDateTime changedAt, Map<LocalDate, SalesTally> sales) {
+        Long serviceBefore = SalesTally.serviceSeconds(order);
+        order.setOrderStatus(newStatus);
+        order.setChangeSeq(orderChangeSequence.next());
         OrderStatusChange change = new OrderStatusChange();
-        change.setOrder(order);
-        change.setStatus(newStatus);
-        change.setChangedAt(LocalDateTime.now());
-        orderStatusChangeRepository.save(change);
-        if ("Zrealizowane".equalsIgnoreCase(newStatus)) {
-            order.setFinishedAt(LocalDateTime.now());
+        change.setOrderStatus(newStatus);
+        change.setChangedAt(changedAt);
+        order.addStatusChange(change);
+        if (newStatus == OrderStatus.COMPLETED) {
+            order.setFinishedAt(changedAt);
         } else {
             order.setFinishedAt(null);
         }
-        orderRepository.save(order);
-        invalidateActiveOrdersCache();
+        Long serviceAfter = SalesTally.serviceSeconds(order);
+        if (!Objects.equals(serviceBefore, serviceAfter)) {
+            SalesTally.forDay(sales, order.getOrderDate()).changeService(serviceBefore, serviceAfter);
+        }
     }
 
     public ActiveOrdersSnapshot getActiveOrdersSnapshot() {
-        ActiveOrdersCache snapshot = activeOrdersCache;
-        if (snapshot.isFresh()) {
-            return snapshot.toSnapshot();
-        }
-        synchronized (activeOrdersCacheLock) {
-            snapshot = activeOrdersCache;
-            if (snapshot.isFresh()) {
-                return snapshot.toSnapshot();
-            }
-            List<OrderEntity> activeOrders = orderRepository.findByStatusIn(
-                    SCREEN_ORDER_STATUSES,
-                    Sort.by(Sort.Direction.ASC, "orderDate")
-                            .and(Sort.by(Sort.Direction.ASC, "orderNumber"))
-            );
-            List<PublicOrderView> view = activeOrders.stream()
-                    .map(o -> new PublicOrderView(o.getId(), o.getOrderNumber(), o.getStatus()))
-                    .collect(Collectors.toList());
-            String etag = computeOrdersEtag(activeOrders);
-            ActiveOrdersCache refreshed = new ActiveOrdersCache(view, etag, Instant.now());
-            activeOrdersCache = refreshed;
-            return refreshed.toSnapshot();
+        return activeOrdersIndex.snapshot();
+    }
+
+    private void ordersChanged(Collection<OrderEntity> orders) {
+        eventPublisher.publishEvent(OrderChangedEvent.of(orders));
+    }
+
+    private void salesChanged(Map<LocalDate, SalesTally> days) {
+        days.values().removeIf(SalesTally::isEmpty);
+        if (!days.isEmpty()) {
+            eventPublisher.publishEvent(new DailySalesChangedEvent(days));
         }
     }
 
-    private void invalidateActiveOrdersCache() {
-        activeOrdersCache = ActiveOrdersCache.stale();
+    private interface OrderChunkConsumer {
+        void accept(List<OrderEntity> chunk) throws IOException;
     }
 
-    private String computeOrdersEtag(List<OrderEntity> orders) {
-        if (orders.isEmpty()) {
-            return "\"empty\"";
+    public record ActiveOrdersSnapshot(List<PublicOrderView> orders, String etag) {}
+
+    public record OrderChanges(List<OrderDto> orders, long cursor) {}
+
+    public record OrderSlice(List<OrderDto> orders, String nextCursor, Long totalElements) {}
+
+    // wejscie raportu statystyk: z listy zamowien (SalesTally), z zapytania agregujacego albo z rollupu dziennego
+    public record SalesStats(long orders, double revenue, String topProduct, long serviceCount, long serviceSeconds) {
+        double averageOrderValue() {
+            return orders == 0 ? 0 : revenue / orders;
         }
-        String payload = orders.stream()
-                .map(o -> o.getId() + "|" + o.getOrderNumber() + "|" + o.getStatus() + "|" +
-                        (o.getFinishedAt() != null ? o.getFinishedAt().toString() : "") + "|" +
-                        (o.getCreatedAt() != null ? o.getCreatedAt().toString() : ""))
-                .collect(Collectors.joining(";"));
-        String digest = DigestUtils.md5DigestAsHex(payload.getBytes(StandardCharsets.UTF_8));
-        return "\"" + digest + "\"";
     }
 
-    private record ActiveOrdersCache(List<PublicOrderView> orders, String etag, Instant fetchedAt) {
-        boolean isFresh() {
-            return fetchedAt != null
-                    && Instant.now().isBefore(fetchedAt.plus(ACTIVE_ORDERS_CACHE_TTL));
+    // kursor to klucz sortowania ostatniego zamowienia strony: "2024-05-10:42"
+    public record OrderCursor(LocalDate orderDate, long orderNumber) {
+        static OrderCursor of(OrderEntity order) {
+            return new OrderCursor(order.getOrderDate(), order.getOrderNumber());
         }
 
-        ActiveOrdersSnapshot toSnapshot() {
-            return new ActiveOrdersSnapshot(orders, etag);
+        public static OrderCursor parse(String value) {
+            int separator = value.lastIndexOf(':');
+            try {
+                return new OrderCursor(LocalDate.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Nieprawidlowy kursor stronicowania.");
+            }
+        }
+
+        public String encode() {
+            return orderDate + ":" + orderNumber;
         }
+    }
 
-        static ActiveOrdersCache empty() {
-            return new ActiveOrdersCache(List.of(), "\"empty\"", Instant.EPOCH);
+    public record BatchOrderResult(OrderEntity order, String error) {
+        static BatchOrderResult created(OrderEntity order) {
+            return new BatchOrderResult(order, null);
         }
 
-        static ActiveOrdersCache stale() {
-            return new ActiveOrdersCache(List.of(), "\"stale\"", Instant.EPOCH);
+        static BatchOrderResult rejected(String error) {
+            return new BatchOrderResult(null, error);
         }
     }
 
-    public record ActiveOrdersSnapshot(List<PublicOrderView> orders, String etag) {}
+    public static class OrderVersionConflictException extends RuntimeException {
+        public OrderVersionConflictException(Long orderId) {
+            super("Zamowienie " + orderId + " zostalo w miedzyczasie zmienione. Odswiez liste zamowien.");
+        }
+    }
 
     public static class ReportLimitExceededException extends RuntimeException {
         private final int limit;
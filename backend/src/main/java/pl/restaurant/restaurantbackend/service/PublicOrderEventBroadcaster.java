@@ -0,0 +1,323 @@
+package pl.restaurant.restaurantbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.restaurant.restaurantbackend.dto.PublicOrderView;
+
+// strumien zmian dla ekranow z numerami (GET /api/public/orders/stream): kazda zmiana jest serializowana raz
+// i trafia do kolejek wszystkich podlaczonych ekranow. Numeracje zdarzen i bufor ostatnich zdarzen prowadzi
+// jeden watek, wiec kolejnosc zdarzen odpowiada kolejnosci commitow, a ponowne podlaczenie z Last-Event-ID
+// nie gubi ani nie dubluje zmian. Zapisy do ekranow wykonuje pula watkow, kazdy ekran ma wlasna ograniczona
+// kolejke (jak stanowiska w KitchenOrderBroadcaster) - ekran na zawieszonym polaczeniu nie opoznia pozostalych,
+// a po przepelnieniu kolejki strumien jest konczony i ekran wraca z Last-Event-ID. Przy zatrzymaniu aplikacji
+// strumienie sa konczone, zanim serwer WWW zacznie czekac (graceful shutdown) na zakonczenie otwartych zadan.
+@Component
+public class PublicOrderEventBroadcaster implements SmartLifecycle {
+    private static final MediaType JSON_UTF8 = new MediaType("application", "json", StandardCharsets.UTF_8);
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final int maxConnections;
+    private final int bufferSize;
+    private final int maxPending;
+    private final long timeoutMillis;
+    // identyfikatory zdarzen "<epoka>-<numer>": po restarcie stare Last-Event-ID nie pasuja i klient dostaje pelny stan
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "public-order-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders;
+    // wszystkie otwarte strumienie, takze jeszcze niepodlaczone na watku dispatcher
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    // ponizsze pola tylko na watku dispatcher
+    private final ArrayDeque<BufferedEvent> recent = new ArrayDeque<>();
+    private long lastSequence;
+
+    public PublicOrderEventBroadcaster(
+            OrderService orderService,
+            ObjectMapper objectMapper,
+            @Value("${app.orders.events.max-connections:500}") int maxConnections,
+            @Value("${app.orders.events.buffer-size:256}") int bufferSize,
+            @Value("${app.orders.events.timeout-minutes:30}") long timeoutMinutes,
+            @Value("${app.orders.events.max-pending:64}") int maxPending,
+            @Value("${app.orders.events.sender-threads:4}") int senderThreads
+    ) {
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxPending = Math.max(1, maxPending);
+        this.timeoutMillis = timeoutMinutes * 60_000;
+        AtomicInteger senderIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "public-order-sender-" + senderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // faza domyslna jest najwyzsza - ten stop() wykonuje sie przed graceful shutdown serwera WWW, ktory inaczej
+    // czekalby na otwarte strumienie przez caly spring.lifecycle.timeout-per-shutdown-phase
+    @Override
+    public void stop() {
+        running = false;
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new TooManySubscribersException(maxConnections);
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        subscriber.emitter.onCompletion(subscriber::release);
+        subscriber.emitter.onTimeout(subscriber::release);
+        subscriber.emitter.onError(ex -> subscriber.release());
+        subscribers.add(subscriber);
+        if (!running) {
+            // zadanie przyjete w trakcie zatrzymywania - stop() moglby juz nie zobaczyc tego strumienia
+            subscriber.emitter.complete();
+            return subscriber.emitter;
+        }
+        submit(dispatcher, () -> attach(subscriber, lastEventId));
+        return subscriber.emitter;
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(OrderChangedEvent event) {
+        List<PublicOrderView> orders = event.orders().stream()
+                .map(OrderChangedEvent.ChangedOrder::toPublicView)
+                .collect(Collectors.toList());
+        if (!orders.isEmpty()) {
+            submit(dispatcher, () -> publish(orders));
+        }
+    }
+
+    // komentarz SSE co kilkanascie sekund - proxy nie zamykaja bezczynnego polaczenia, a zerwane wychodza przy zapisie
+    @Scheduled(fixedDelayString = "${app.orders.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        subscribers.forEach(subscriber -> {
+            if (subscriber.attached) {
+                subscriber.offer(() -> ping);
+            }
+        });
+    }
+
+    private void attach(Subscriber subscriber, String lastEventId) {
+        if (subscriber.released.get()) {
+            return;
+        }
+        List<BufferedEvent> missed = missedSince(lastEventId);
+        if (missed == null) {
+            // nowy ekran albo luka wieksza niz bufor - pelny stan zamiast odtwarzania zdarzen. Migawka jest czytana
+            // dopiero na watku wysylki, wiec moze juz zawierac zmiany z kolejnych zdarzen (ustawionych za nia
+            // w kolejce); kazde zdarzenie niesie pelny stan zamowienia, wiec ekran i tak konczy na najnowszym
+            long sequence = lastSequence;
+            subscriber.offer(() -> snapshotEvent(sequence));
+        } else {
+            missed.forEach(event -> subscriber.offer(event::payload));
+        }
+        subscriber.attached = true;
+    }
+
+    private void publish(List<PublicOrderView> orders) {
+        String data = serialize(orders);
+        lastSequence++;
+        Set<DataWithMediaType> payload = SseEmitter.event()
+                .id(eventId(lastSequence))
+                .name("orders")
+                .data(data, JSON_UTF8)
+                .build();
+        recent.addLast(new BufferedEvent(lastSequence, payload));
+        while (recent.size() > bufferSize) {
+            recent.removeFirst();
+        }
+        subscribers.forEach(subscriber -> {
+            if (subscriber.attached) {
+                subscriber.offer(() -> payload);
+            }
+        });
+    }
+
+    private Set<DataWithMediaType> snapshotEvent(long sequence) {
+        return SseEmitter.event()
+                .id(eventId(sequence))
+                .name("snapshot")
+                .data(serialize(orderService.getActiveOrdersSnapshot().orders()), JSON_UTF8)
+                .build();
+    }
+
+    // null = brak ciaglosci z Last-Event-ID, trzeba wyslac pelny stan
+    private List<BufferedEvent> missedSince(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return null;
+        }
+        long sequence;
+        try {
+            sequence = Long.parseLong(lastEventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (sequence > lastSequence) {
+            return null;
+        }
+        long oldestBuffered = recent.isEmpty() ? lastSequence + 1 : recent.peekFirst().sequence();
+        if (sequence < oldestBuffered - 1) {
+            return null;
+        }
+        List<BufferedEvent> missed = new ArrayList<>();
+        Iterator<BufferedEvent> iterator = recent.descendingIterator();
+        while (iterator.hasNext()) {
+            BufferedEvent event = iterator.next();
+            if (event.sequence() <= sequence) {
+                break;
+            }
+            missed.add(0, event);
+        }
+        return missed;
+    }
+
+    private void submit(ExecutorService executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // zatrzymywanie aplikacji - strumienie zakonczyl juz stop()
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private String serialize(List<PublicOrderView> orders) {
+        try {
+            return objectMapper.writeValueAsString(orders);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Nie mozna zserializowac zamowien.", ex);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean released = new AtomicBoolean();
+        // zdarzenie budowane dopiero przy wysylce - migawka stanu jest czytana na watku wysylki, nie dispatcher
+        private final ConcurrentLinkedQueue<Supplier<Set<DataWithMediaType>>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // ustawiane na watku dispatcher po zakolejkowaniu migawki albo pominietych zdarzen
+        private volatile boolean attached;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Supplier<Set<DataWithMediaType>> event) {
+            if (released.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                // ekran nie nadaza - konczymy strumien, EventSource wraca z Last-Event-ID i dostaje zaleglosci z bufora
+                emitter.complete();
+                release();
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                submit(senders, this::drain);
+            }
+        }
+
+        // SseEmitter nie pozwala na rownolegle zapisy zdarzen - na raz wysyla tylko jeden watek (flaga draining)
+        private void drain() {
+            try {
+                Supplier<Set<DataWithMediaType>> event;
+                while ((event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    if (released.get()) {
+                        pending.clear();
+                        return;
+                    }
+                    emitter.send(event.get());
+                }
+            } catch (IOException | RuntimeException ex) {
+                emitter.completeWithError(ex);
+                release();
+            } finally {
+                draining.set(false);
+                if (!pending.isEmpty() && !released.get()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                connections.decrementAndGet();
+                pending.clear();
+            }
+        }
+    }
+
+    private record BufferedEvent(long sequence, Set<DataWithMediaType> payload) {}
+
+    public static class TooManySubscribersException extends RuntimeException {
+        public TooManySubscribersException(int limit) {
+            super("Osiagnieto limit polaczen ekranow zamowien (" + limit + ").");
+        }
+    }
+}
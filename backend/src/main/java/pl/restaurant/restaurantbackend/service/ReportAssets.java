@@ -0,0 +1,108 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fonts.FontInfo;
+import net.sf.jasperreports.engine.fonts.FontUtil;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.renderers.SimpleDataRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+// wspolne zasoby raportow PDF wczytywane raz przy starcie: szablony skompilowane do .jasper w buildzie Maven
+// (maven-antrun-plugin w pom.xml - w aplikacji nie ma kompilatora Javy), logo i czcionka Liberation Sans
+// z rozszerzenia jasperreports_extension.properties. Przy starcie kazdy szablon jest tez raz wypelniany
+// i eksportowany do PDF (klasy wyrazen, czcionka w eksporterze), wiec pierwszy raport po wdrozeniu trwa
+// tyle co kolejne.
+@Component
+public class ReportAssets implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(ReportAssets.class);
+    private static final String ORDERS_REPORT_TEMPLATE = "orders_report.jasper";
+    private static final String STATS_REPORT_TEMPLATE = "orders_stats_report.jasper";
+    private static final String LOGO = "img/logo.jpg";
+    private static final String REPORT_FONT = "Liberation Sans";
+
+    private final JasperReport ordersTemplate;
+    private final JasperReport statsTemplate;
+    // jeden obiekt na wszystkie raporty - wypelnianie nie czyta juz logo z classpath przy kazdym raporcie
+    private final Renderable logo;
+    private final boolean warmup;
+
+    public ReportAssets(@Value("${app.reports.assets.warmup:true}") boolean warmup) {
+        this.ordersTemplate = loadTemplate(ORDERS_REPORT_TEMPLATE);
+        this.statsTemplate = loadTemplate(STATS_REPORT_TEMPLATE);
+        this.logo = SimpleDataRenderer.getInstance(readResource(LOGO));
+        this.warmup = warmup;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        FontInfo font = FontUtil.getInstance(DefaultJasperReportsContext.getInstance()).getFontInfo(REPORT_FONT, null);
+        if (font == null) {
+            throw new IllegalStateException("Brak czcionki raportow " + REPORT_FONT + " (jasperreports_extension.properties)");
+        }
+        // plik TTF ladowany leniwie przy pierwszym uzyciu - tu, a nie w pierwszym raporcie
+        font.getFontFamily().getNormalFace().getFont();
+        if (!warmup) {
+            return;
+        }
+        try {
+            render(ordersTemplate);
+            render(statsTemplate);
+        } catch (JRException ex) {
+            // raporty i tak zadzialaja (ewentualny blad zobaczy pierwszy menedzer), start nie jest przerywany
+            log.warn("Nie udalo sie rozgrzac szablonow raportow", ex);
+        }
+    }
+
+    public JasperReport ordersTemplate() {
+        return ordersTemplate;
+    }
+
+    public JasperReport statsTemplate() {
+        return statsTemplate;
+    }
+
+    // parametry wspolne dla szablonow (logo) - kazdy raport dostaje wlasna mape i dopisuje swoje
+    public Map<String, Object> parameters() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("LOGO", logo);
+        return params;
+    }
+
+    private void render(JasperReport template) throws JRException {
+        JasperPrint print = JasperFillManager.fillReport(template, parameters(), new JREmptyDataSource());
+        JasperExportManager.exportReportToPdf(print);
+    }
+
+    private static JasperReport loadTemplate(String resourcePath) {
+        try (InputStream stream = new ClassPathResource(resourcePath).getInputStream()) {
+            return (JasperReport) JRLoader.loadObject(stream);
+        } catch (IOException | JRException ex) {
+            throw new IllegalStateException("Nie mozna wczytac szablonu raportu: " + resourcePath
+                    + " (szablony .jasper powstaja w buildzie: mvn process-resources)", ex);
+        }
+    }
+
+    private static byte[] readResource(String resourcePath) {
+        try (InputStream stream = new ClassPathResource(resourcePath).getInputStream()) {
+            return stream.readAllBytes();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Nie mozna wczytac zasobu raportu: " + resourcePath, ex);
+        }
+    }
+}
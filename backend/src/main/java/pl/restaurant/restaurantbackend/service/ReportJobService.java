@@ -0,0 +1,262 @@
+package pl.restaurant.restaurantbackend.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.restaurant.restaurantbackend.service.OrderReportService.ReportRequest;
+import pl.restaurant.restaurantbackend.service.OrderService.ReportLimitExceededException;
+
+// raporty generowane w tle: ograniczona pula watkow z ograniczona kolejka, gotowy plik w katalogu tymczasowym
+// do pobrania az do wygasniecia. Zlecenie z takimi samymi parametrami jak raport w kolejce / w trakcie dostaje
+// to samo zadanie - odswiezanie strony nie uruchamia kolejnych kopii, a zamkniecie przegladarki nie gubi pracy.
+// Zadania sa tylko w pamieci - po restarcie katalog jest czyszczony.
+@Component
+public class ReportJobService {
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+    private static final String PART_SUFFIX = ".part";
+
+    private final OrderReportService reportService;
+    private final Path directory;
+    private final Duration ttl;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<ReportRequest, ReportJob> pending = new ConcurrentHashMap<>();
+
+    public ReportJobService(
+            OrderReportService reportService,
+            @Value("${app.reports.jobs.dir:${java.io.tmpdir}/restaurant-report-jobs}") String directory,
+            @Value("${app.reports.jobs.threads:2}") int threads,
+            @Value("${app.reports.jobs.queue-size:20}") int queueSize,
+            @Value("${app.reports.jobs.ttl-minutes:30}") long ttlMinutes
+    ) throws IOException {
+        this.reportService = reportService;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.ttl = Duration.ofMinutes(Math.max(1, ttlMinutes));
+        Files.createDirectories(this.directory);
+        deleteLeftovers();
+        AtomicInteger workerIndex = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + workerIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // zadanie z tymi samymi parametrami jeszcze niegotowe - zwracane zamiast nowego; gotowe raporty nie sa
+    // wspoldzielone, bo kolejne zlecenie po zakonczeniu ma widziec nowsze zamowienia
+    public ReportJob submit(ReportRequest request) {
+        try {
+            return pending.computeIfAbsent(request, key -> {
+                ReportJob job = new ReportJob(UUID.randomUUID().toString(), key, Instant.now());
+                jobs.put(job.id(), job);
+                try {
+                    executor.execute(() -> run(job));
+                } catch (RejectedExecutionException ex) {
+                    jobs.remove(job.id());
+                    throw ex;
+                }
+                return job;
+            });
+        } catch (RejectedExecutionException ex) {
+            throw new ReportQueueFullException();
+        }
+    }
+
+    public Optional<ReportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    // strumien otwierany od razu - plik usuniety przy wygasaniu w trakcie pobierania jest juz otwarty i czyta sie do konca
+    public ReportFile open(String id) throws IOException {
+        ReportJob job = find(id).orElseThrow(() -> new ReportJobNotFoundException(id));
+        if (job.status() != Status.DONE) {
+            throw new ReportJobNotReadyException(job);
+        }
+        Path file = job.file;
+        try {
+            return new ReportFile(job, Files.newInputStream(file), Files.size(file));
+        } catch (NoSuchFileException ex) {
+            throw new ReportJobNotFoundException(id);
+        }
+    }
+
+    public Instant expiresAt(ReportJob job) {
+        Instant finishedAt = job.finishedAt;
+        return finishedAt != null ? finishedAt.plus(ttl) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reports.jobs.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        for (ReportJob job : jobs.values()) {
+            Instant finishedAt = job.finishedAt;
+            if (finishedAt != null && finishedAt.isBefore(cutoff) && jobs.remove(job.id(), job)) {
+                deleteQuietly(job.file);
+            }
+        }
+    }
+
+    private void run(ReportJob job) {
+        job.status = Status.RUNNING;
+        Path part = directory.resolve(job.id() + PART_SUFFIX);
+        try {
+            try (OutputStream output = Files.newOutputStream(part)) {
+                reportService.write(job.request(), output, job::progress);
+            }
+            Path file = directory.resolve(job.id() + "." + job.request().format());
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            job.file = file;
+            job.progress = 100;
+            job.finishedAt = Instant.now();
+            job.status = Status.DONE;
+        } catch (ReportLimitExceededException ex) {
+            fail(job, part, OrderReportService.limitMessage(ex));
+        } catch (IllegalArgumentException ex) {
+            fail(job, part, ex.getMessage() != null ? ex.getMessage() : "Nieprawidlowe parametry raportu");
+        } catch (Exception ex) {
+            log.warn("Nie udalo sie wygenerowac raportu {}", job.id(), ex);
+            fail(job, part, "Nie udalo sie wygenerowac raportu");
+        } finally {
+            pending.remove(job.request(), job);
+        }
+    }
+
+    private void fail(ReportJob job, Path part, String message) {
+        deleteQuietly(part);
+        job.error = message;
+        job.finishedAt = Instant.now();
+        job.status = Status.FAILED;
+    }
+
+    private void deleteLeftovers() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{pdf,csv,part}")) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Nie udalo sie usunac pliku raportu {}", file, ex);
+        }
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    public static final class ReportJob {
+        private final String id;
+        private final ReportRequest request;
+        private final Instant createdAt;
+        private volatile Status status = Status.QUEUED;
+        private volatile int progress;
+        private volatile String error;
+        private volatile Path file;
+        private volatile Instant finishedAt;
+
+        ReportJob(String id, ReportRequest request, Instant createdAt) {
+            this.id = id;
+            this.request = request;
+            this.createdAt = createdAt;
+        }
+
+        // postep tylko rosnie - etapy PDF i paczki CSV zglaszaja go z jednego watku
+        void progress(int percent) {
+            if (percent > progress) {
+                progress = Math.min(percent, 100);
+            }
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public ReportRequest request() {
+            return request;
+        }
+
+        public Instant createdAt() {
+            return createdAt;
+        }
+
+        public Status status() {
+            return status;
+        }
+
+        public int progress() {
+            return progress;
+        }
+
+        public String error() {
+            return error;
+        }
+
+        public Instant finishedAt() {
+            return finishedAt;
+        }
+    }
+
+    public record ReportFile(ReportJob job, InputStream content, long size) {}
+
+    public static class ReportQueueFullException extends RuntimeException {
+        public ReportQueueFullException() {
+            super("Kolejka raportow jest pelna. Sprobuj ponownie za chwile.");
+        }
+    }
+
+    public static class ReportJobNotFoundException extends RuntimeException {
+        public ReportJobNotFoundException(String id) {
+            super("Nie znaleziono raportu " + id + " (mogl juz wygasnac)");
+        }
+    }
+
+    public static class ReportJobNotReadyException extends RuntimeException {
+        private final ReportJob job;
+
+        public ReportJobNotReadyException(ReportJob job) {
+            super(job.status() == Status.FAILED ? job.error() : "Raport nie jest jeszcze gotowy");
+            this.job = job;
+        }
+
+        public ReportJob getJob() {
+            return job;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderItem;
+
+// sumy sprzedazy jednego dnia albo calego zakresu raportu: liczba i wartosc zamowien, ilosci produktow
+// i czas obslugi zamowien zrealizowanych. Ta sama postac dla przyrostow rollupu dziennego, jego odbudowy
+// i statystyk liczonych z listy zamowien, wiec oba zrodla raportu licza dokladnie to samo.
+public final class SalesTally {
+    private final Map<String, Long> products = new HashMap<>();
+    private long orders;
+    private double revenue;
+    private long serviceCount;
+    private long serviceSeconds;
+
+    // TreeMap - kolejne dni zawsze w tej samej kolejnosci, wiec zapis rollupu blokuje wiersze dni bez zakleszczen
+    static Map<LocalDate, SalesTally> byDay(Collection<OrderEntity> orders) {
+        Map<LocalDate, SalesTally> days = new TreeMap<>();
+        for (OrderEntity order : orders) {
+            forDay(days, order.getOrderDate()).addOrder(order);
+        }
+        return days;
+    }
+
+    static SalesTally forDay(Map<LocalDate, SalesTally> days, LocalDate orderDate) {
+        return days.computeIfAbsent(orderDate, day -> new SalesTally());
+    }
+
+    // liczone z createdAt/finishedAt, a nie z kolumny service_seconds - ta jest uzupelniana dopiero przy zapisie
+    static Long serviceSeconds(OrderEntity order) {
+        return order.computeServiceSeconds();
+    }
+
+    void addOrder(OrderEntity order) {
+        orders++;
+        for (OrderItem item : order.getItems()) {
+            products.merge(item.getName(), (long) item.getQuantity(), Long::sum);
+            revenue += item.getPrice() * item.getQuantity();
+        }
+        changeService(null, serviceSeconds(order));
+    }
+
+    // zmiana statusu: zamowienie przestaje (before) i/lub zaczyna (after) liczyc sie do sredniego czasu obslugi
+    void changeService(Long before, Long after) {
+        if (before != null) {
+            serviceCount--;
+            serviceSeconds -= before;
+        }
+        if (after != null) {
+            serviceCount++;
+            serviceSeconds += after;
+        }
+    }
+
+    boolean isEmpty() {
+        return orders == 0 && revenue == 0 && serviceCount == 0 && serviceSeconds == 0 && products.isEmpty();
+    }
+
+    public long orders() {
+        return orders;
+    }
+
+    public double revenue() {
+        return revenue;
+    }
+
+    public long serviceCount() {
+        return serviceCount;
+    }
+
+    public long serviceSeconds() {
+        return serviceSeconds;
+    }
+
+    public Map<String, Long> products() {
+        return Collections.unmodifiableMap(products);
+    }
+
+    public OrderService.SalesStats toStats() {
+        // przy remisie nazwa alfabetycznie, jak w zapytaniu rollupu
+        String topProduct = products.entrySet().stream()
+                .max(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        return new OrderService.SalesStats(orders, revenue, topProduct, serviceCount, serviceSeconds);
+    }
+}
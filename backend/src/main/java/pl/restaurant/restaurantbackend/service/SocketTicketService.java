@@ -0,0 +1,64 @@
+package pl.restaurant.restaurantbackend.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.restaurant.restaurantbackend.service.AuthService.AuthSession;
+
+// jednorazowe bilety do /api/ws/orders: przegladarka nie ustawi naglowka Authorization dla WebSocket, a JWT
+// w adresie zostawalby w logach serwera i proxy. Bilet wydaje uwierzytelnione POST /api/auth/socket-ticket,
+// jest wazny kilkadziesiat sekund (nie dluzej niz token) i zuzywa go pierwszy handshake.
+@Service
+public class SocketTicketService {
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Duration ttl;
+
+    public SocketTicketService(@Value("${app.auth.socket-ticket.ttl-seconds:30}") long ttlSeconds) {
+        this.ttl = Duration.ofSeconds(Math.max(1, ttlSeconds));
+    }
+
+    public SocketTicket issue(AuthSession session) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Instant expiresAt = Instant.now().plus(ttl);
+        if (session.expiresAt().isBefore(expiresAt)) {
+            expiresAt = session.expiresAt();
+        }
+        tickets.put(ticket, new Ticket(session, expiresAt));
+        return new SocketTicket(ticket, expiresAt);
+    }
+
+    // sesja, dla ktorej wydano bilet; bilet jest usuwany przy pierwszej probie, takze nieudanej
+    public Optional<AuthSession> redeem(String ticket) {
+        if (ticket == null || ticket.isBlank()) {
+            return Optional.empty();
+        }
+        Ticket issued = tickets.remove(ticket);
+        if (issued == null || !issued.expiresAt().isAfter(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(issued.session());
+    }
+
+    // bilety pobrane, ale nieuzyte (np. zamkniete okno przed polaczeniem)
+    @Scheduled(fixedDelayString = "${app.auth.socket-ticket.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        tickets.values().removeIf(ticket -> !ticket.expiresAt().isAfter(now));
+    }
+
+    public record SocketTicket(String ticket, Instant expiresAt) {}
+
+    private record Ticket(AuthSession session, Instant expiresAt) {}
+}
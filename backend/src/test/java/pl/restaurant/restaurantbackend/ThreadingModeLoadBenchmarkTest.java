@@ -0,0 +1,154 @@
+package pl.restaurant.restaurantbackend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// porownanie puli watkow Tomcata z watkami wirtualnymi (profil virtual-threads) na tych samych endpointach;
+// uruchamiany na JDK 21: ./mvnw test -Pbenchmark,java21
+@Tag("benchmark")
+class ThreadingModeLoadBenchmarkTest {
+    private static final int CLIENTS = 300;
+    private static final int ORDER_REQUESTS = 3000;
+    private static final int ACTIVE_REQUESTS = 6000;
+    private static final int REPORT_REQUESTS = 150;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        List<String> report = new ArrayList<>(runScenarios("platform", false));
+        report.forEach(System.out::println);
+        // bez trybu wirtualnego porownanie nie ma sensu - na starszym JDK test konczy sie bledem zamiast go pomijac
+        assertThat(Runtime.version().feature())
+                .as("watki wirtualne wymagaja JDK 21+ (biezacy: %s) - uruchom ./mvnw test -Pbenchmark,java21 na JDK 21", Runtime.version())
+                .isGreaterThanOrEqualTo(21);
+        runScenarios("virtual", true).forEach(System.out::println);
+    }
+
+    private List<String> runScenarios(String mode, boolean virtualThreads) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RestaurantBackendApplication.class)
+                .profiles(virtualThreads ? new String[] {"test", "virtual-threads"} : new String[] {"test"})
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        // ta sama pula polaczen w obu trybach, zeby roznica wynikala tylko z watkow
+                        "spring.datasource.hikari.maximum-pool-size=30"
+                )
+                .run();
+        try {
+            String baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            long menuItemId = firstMenuItemId(baseUrl);
+            String token = managerToken(baseUrl);
+            String orderBody = "{\"type\":\"na wynos\",\"items\":[{\"menuItemId\":" + menuItemId + ",\"quantity\":1}]}";
+            String today = LocalDate.now().toString();
+
+            List<String> lines = new ArrayList<>();
+            lines.add(measure(mode, "POST /api/orders", ORDER_REQUESTS, () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(orderBody))
+                    .build()));
+            lines.add(measure(mode, "GET /api/public/orders/active", ACTIVE_REQUESTS, () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/public/orders/active"))
+                    .GET()
+                    .build()));
+            lines.add(measure(mode, "GET /api/manager/orders/report", REPORT_REQUESTS, () -> HttpRequest.newBuilder(
+                            URI.create(baseUrl + "/api/manager/orders/report?reportType=orders&format=pdf&dateFrom=" + today + "&dateTo=" + today))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build()));
+            return lines;
+        } finally {
+            context.close();
+        }
+    }
+
+    private String measure(String mode, String label, int requests, RequestFactory requestFactory) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger nextRequest = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long elapsedNanos;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    start.await();
+                    for (int n = nextRequest.getAndIncrement(); n < requests; n = nextRequest.getAndIncrement()) {
+                        long started = System.nanoTime();
+                        HttpResponse<byte[]> response = http.send(requestFactory.create(), HttpResponse.BodyHandlers.ofByteArray());
+                        latencies[n] = System.nanoTime() - started;
+                        if (response.statusCode() >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsedNanos = System.nanoTime() - started;
+        } finally {
+            clients.shutdownNow();
+        }
+        assertThat(errors).as(label + " (" + mode + ")").hasValue(0);
+        Arrays.sort(latencies);
+        return String.format("%-8s %-32s %6d req %9.0f req/s  p50 %7.2f ms  p99 %7.2f ms  max %7.2f ms",
+                mode, label, requests, requests / (elapsedNanos / 1_000_000_000.0),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000.0);
+    }
+
+    private double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private long firstMenuItemId(String baseUrl) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/menu")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        for (JsonNode item : objectMapper.readTree(response.body())) {
+            if (item.path("active").asBoolean(true)) {
+                return item.get("id").asLong();
+            }
+        }
+        throw new IllegalStateException("Brak aktywnych pozycji menu");
+    }
+
+    private String managerToken(String baseUrl) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"manager\",\"password\":\"manager123\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create();
+    }
+}
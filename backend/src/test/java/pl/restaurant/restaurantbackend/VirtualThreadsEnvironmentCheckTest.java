@@ -0,0 +1,31 @@
+package pl.restaurant.restaurantbackend;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+class VirtualThreadsEnvironmentCheckTest {
+    private final VirtualThreadsEnvironmentCheck check = new VirtualThreadsEnvironmentCheck();
+
+    @Test
+    void virtualThreads_failStartupBelowJava21() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        if (Runtime.version().feature() < VirtualThreadsEnvironmentCheck.MIN_JAVA_VERSION) {
+            assertThatThrownBy(() -> check.postProcessEnvironment(environment, new SpringApplication()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Java 21");
+        } else {
+            assertThatCode(() -> check.postProcessEnvironment(environment, new SpringApplication())).doesNotThrowAnyException();
+        }
+    }
+
+    @Test
+    void platformThreads_startOnAnyJava() {
+        assertThatCode(() -> check.postProcessEnvironment(new MockEnvironment(), new SpringApplication()))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,51 @@
+package pl.restaurant.restaurantbackend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import pl.restaurant.restaurantbackend.dto.PublicOrderView;
+
+class PreparedJsonResponsesTest {
+    private final PreparedJsonResponses responses = new PreparedJsonResponses(new ObjectMapper());
+
+    @Test
+    void respond_serializesOncePerVersionAndServesGzipVariant() throws Exception {
+        AtomicInteger serializations = new AtomicInteger();
+        Supplier<List<PublicOrderView>> orders = () -> {
+            serializations.incrementAndGet();
+            return List.of(new PublicOrderView(1L, 45L, "Gotowe"));
+        };
+
+        ResponseEntity<byte[]> plain = responses.respond("active", "\"v1\"", orders, null, null);
+        ResponseEntity<byte[]> gzip = responses.respond("active", "\"v1\"", orders, null, "br, gzip;q=0.8");
+
+        assertThat(serializations).hasValue(1);
+        assertThat(new String(plain.getBody(), StandardCharsets.UTF_8)).isEqualTo("[{\"id\":1,\"orderNumber\":45,\"status\":\"Gotowe\"}]");
+        assertThat(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gzip.getHeaders().getETag()).isNotEqualTo(plain.getHeaders().getETag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.getBody());
+        }
+
+        assertThat(responses.respond("active", "\"v1\"", orders, gzip.getHeaders().getETag(), "gzip").getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(responses.respond("active", "\"v1\"", orders, null, "gzip;q=0").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                .isNull();
+
+        ResponseEntity<byte[]> changed = responses.respond("active", "\"v2\"", orders, plain.getHeaders().getETag(), null);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(serializations).hasValue(2);
+    }
+}
@@ -0,0 +1,113 @@
+package pl.restaurant.restaurantbackend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderItem;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+import pl.restaurant.restaurantbackend.model.OrderType;
+
+// plany zapytan H2 dla wzorcow dostepu, pod ktore zalozone sa indeksy na OrderEntity
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:orderindexes;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("test")
+// ANALYZE zatwierdza transakcje, wiec dane zapisujemy raz i poza transakcja testu
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderIndexPlanTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 20);
+    private static boolean ordersCreated;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createOrders() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if (ordersCreated) {
+            return;
+        }
+        // bez przykladowych zamowien z seedData - tylko rozklad danych opisany ponizej
+        orderRepository.deleteAll();
+        // 20 dni po 20 zamowien; aktywne sa tylko zamowienia z ostatniego dnia - jak w dzialajacej restauracji
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int day = 0; day < 20; day++) {
+            LocalDate date = TODAY.minusDays(day);
+            for (int number = 1; number <= 20; number++) {
+                String status = day > 0 ? "Zrealizowane" : (number % 2 == 0 ? "Gotowe" : "W realizacji");
+                orders.add(order(date, LocalTime.of(8 + number / 2, (number % 2) * 30), status, number));
+            }
+        }
+        orderRepository.saveAll(orders);
+        // statystyki selektywnosci kolumn - bez nich H2 zaklada domyslna selektywnosc i plan nie oddaje danych
+        jdbcTemplate.execute("ANALYZE");
+        ordersCreated = true;
+    }
+
+    @Test
+    void activeOrdersQuery_usesStatusIndex() {
+        // kody OrderStatus: 1 = "W realizacji", 2 = "Gotowe"
+        String plan = explain("SELECT id FROM order_entity WHERE status IN (1, 2)");
+
+        assertThat(plan).contains("IDX_ORDER_STATUS_DATE_NUMBER");
+    }
+
+    @Test
+    void reportTimeFilter_usesDateAndCreatedTimeIndex() {
+        String plan = explain("SELECT id FROM order_entity WHERE order_date = DATE '2024-05-18'"
+                + " AND created_time >= TIME '12:00:00' AND created_time <= TIME '14:00:00'");
+
+        assertThat(plan).contains("IDX_ORDER_DATE_CREATED_TIME");
+    }
+
+    @Test
+    void statusAndType_areStoredAsCodes() {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT status, type FROM order_entity WHERE order_date = DATE '2024-05-20' AND order_number = 2");
+
+        assertThat(((Number) row.get("STATUS")).intValue()).isEqualTo(OrderStatus.READY.code());
+        assertThat(((Number) row.get("TYPE")).intValue()).isEqualTo(OrderType.DINE_IN.code());
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toUpperCase();
+    }
+
+    private OrderEntity order(LocalDate date, LocalTime time, String status, long orderNumber) {
+        OrderItem item = new OrderItem();
+        item.setMenuItemId(1L);
+        item.setName("Test Item");
+        item.setPrice(10.0);
+        item.setQuantity(1);
+
+        OrderEntity order = new OrderEntity();
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(date);
+        order.setCreatedAt(LocalDateTime.of(date, time));
+        order.setStatus(status);
+        order.setType("na miejscu");
+        order.setItems(List.of(item));
+        return order;
+    }
+}
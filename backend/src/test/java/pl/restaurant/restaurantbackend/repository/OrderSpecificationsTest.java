@@ -85,6 +85,17 @@ public class OrderSpecificationsTest {
                 .isEqualTo(expected.getOrderNumber());
     }
 
+    @Test
+    void unknownStatusMatchesNothing() {
+        orderRepository.save(order(LocalDate.now(), LocalTime.of(9, 0), "W realizacji", "na miejscu", 251));
+
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .status("w przygotowaniu")
+                .build();
+
+        assertThat(orderRepository.findAll(OrderSpecifications.withCriteria(criteria))).isEmpty();
+    }
+
     @Test
     void filtersByTimeRangeUsingCreatedAt() {
         orderRepository.save(order(LocalDate.now(), LocalTime.of(8, 0), "W realizacji", "na miejscu", 301));
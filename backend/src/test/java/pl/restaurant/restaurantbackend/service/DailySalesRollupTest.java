@@ -0,0 +1,172 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.dto.OrderStatusUpdateRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderItem;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+import pl.restaurant.restaurantbackend.model.OrderType;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// przeliczenie przy starcie obejmuje zamowienia z seedData (do 3 dni wstecz) - bez uzupelniania historii w tle,
+// ktore scigaloby sie z testami o gotowosc rollupu
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dailysales;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.reports.rollup.repair-days=4"
+})
+@ActiveProfiles("test")
+class DailySalesRollupTest {
+    private static final int HISTORY_DAYS = 40;
+    private static boolean created;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DailySalesRollup dailySalesRollup;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createOrders() {
+        if (created) {
+            return;
+        }
+        // historia zapisana z pominieciem OrderService - do rollupu trafia dopiero przez rebuild()
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderEntity> history = new ArrayList<>();
+        for (int day = 5; day < HISTORY_DAYS; day++) {
+            LocalDateTime createdAt = now.minusDays(day);
+            for (int i = 0; i < 1 + day % 3; i++) {
+                OrderEntity order = historicOrder(1000 + i, createdAt.plusMinutes(i), day % 2 == 0 ? "Kawa" : "Sernik", 1 + i);
+                if (i % 2 == 0) {
+                    order.setOrderStatus(OrderStatus.COMPLETED);
+                    order.setFinishedAt(order.getCreatedAt().plusMinutes(10 + day % 7).plusSeconds(day));
+                }
+                history.add(order);
+            }
+        }
+        orderRepository.saveAll(history);
+        dailySalesRollup.rebuild(now.toLocalDate().minusDays(HISTORY_DAYS), now.toLocalDate().minusDays(5));
+
+        // dzisiejsze zamowienia przez OrderService - rollup aktualizowany przyrostowo
+        MenuItem burger = menuItemRepository.save(menuItem("Burger", 25.0));
+        MenuItem fries = menuItemRepository.save(menuItem("Frytki", 8.5));
+        List<CreateOrderRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            requests.add(new CreateOrderRequest(i % 3 == 0 ? "na wynos" : "na miejscu", List.of(
+                    new CreateOrderRequest.Item(burger.getId(), 1 + i % 2),
+                    new CreateOrderRequest.Item(fries.getId(), 2))));
+        }
+        List<Long> ids = orderService.createOrders(requests).stream().map(result -> result.order().getId()).toList();
+        List<OrderStatusUpdateRequest> completed = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            completed.add(new OrderStatusUpdateRequest(ids.get(i), "Zrealizowane", null));
+        }
+        orderService.changeOrderStatuses(completed);
+        // anulowanie i cofniecie zrealizowanych zamowien odejmuje je od czasu obslugi
+        orderService.changeOrderStatus(ids.get(0), "Anulowane");
+        orderService.changeOrderStatus(ids.get(1), "Gotowe");
+        orderService.changeOrderStatus(ids.get(25), "Anulowane");
+        created = true;
+    }
+
+    @Test
+    void stats_matchStatsComputedFromOrders() {
+        LocalDate today = LocalDate.now();
+
+        assertSameAsFromOrders(today, today);
+        assertSameAsFromOrders(today.minusDays(HISTORY_DAYS), today);
+        assertSameAsFromOrders(today.minusDays(20), today.minusDays(10));
+    }
+
+    @Test
+    void rebuild_givesSameTotalsAsIncrementalUpdates() {
+        LocalDate today = LocalDate.now();
+        String incremental = orderService.generateStatsCsv(dailySalesRollup.stats(today, today).orElseThrow());
+
+        dailySalesRollup.rebuild(today, today);
+
+        assertThat(orderService.generateStatsCsv(dailySalesRollup.stats(today, today).orElseThrow())).isEqualTo(incremental);
+    }
+
+    @Test
+    void rebuild_duringConcurrentOrders_losesAndDoublesNothing() throws Exception {
+        LocalDate today = LocalDate.now();
+        MenuItem soup = menuItemRepository.save(menuItem("Zupa", 14.0));
+        AtomicBoolean ordering = new AtomicBoolean(true);
+        Thread rebuilds = new Thread(() -> {
+            while (ordering.get()) {
+                dailySalesRollup.rebuild(today, today);
+            }
+        });
+        rebuilds.start();
+        try {
+            for (int i = 0; i < 40; i++) {
+                orderService.createOrder(new CreateOrderRequest("na miejscu", List.of(new CreateOrderRequest.Item(soup.getId(), 1))));
+            }
+        } finally {
+            ordering.set(false);
+            rebuilds.join();
+        }
+
+        assertSameAsFromOrders(today, today);
+    }
+
+    private void assertSameAsFromOrders(LocalDate from, LocalDate to) {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().dateFrom(from).dateTo(to).build();
+        String fromOrders = transactionTemplate.execute(status ->
+                orderService.generateStatsCsv(orderService.findOrders(criteria), null, null, null, null));
+        String fromRollup = orderService.generateStatsCsv(dailySalesRollup.stats(from, to).orElseThrow());
+
+        assertThat(fromRollup).isEqualTo(fromOrders).doesNotContain("Liczba zamowien,0\n");
+    }
+
+    private OrderEntity historicOrder(long number, LocalDateTime createdAt, String product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setMenuItemId(1L);
+        item.setName(product);
+        item.setQuantity(quantity);
+        item.setPrice(12.5);
+        OrderEntity order = new OrderEntity();
+        order.setOrderNumber(number);
+        order.setOrderDate(createdAt.toLocalDate());
+        order.setCreatedAt(createdAt);
+        order.setOrderStatus(OrderStatus.READY);
+        order.setOrderType(OrderType.TAKEAWAY);
+        order.setItems(new ArrayList<>(List.of(item)));
+        return order;
+    }
+
+    private MenuItem menuItem(String name, double price) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
@@ -0,0 +1,85 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import pl.restaurant.restaurantbackend.controller.ManagerOrderController;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.OrdersPageResponse;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DataVersionRegistryTest {
+
+    @Autowired
+    private ManagerOrderController managerOrderController;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private DataVersionRegistry dataVersionRegistry;
+
+    @Test
+    void getOrders_returnsNotModifiedUntilCoveredDateChanges() {
+        LocalDate today = LocalDate.now();
+        LocalDate lastWeek = today.minusDays(7);
+        ResponseEntity<OrdersPageResponse> history = getOrders(lastWeek, today.minusDays(1), null);
+        ResponseEntity<OrdersPageResponse> current = getOrders(today, today, null);
+        assertThat(history.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(history.getHeaders().getETag()).isNotBlank();
+
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        OrderEntity created = orderService.createOrder(
+                new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1))));
+
+        // zamowienie z dzisiaj nie zmienia historii - 304 bez zapytania do bazy
+        ResponseEntity<OrdersPageResponse> historyAgain = getOrders(lastWeek, today.minusDays(1), history.getHeaders().getETag());
+        assertThat(historyAgain.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(historyAgain.getBody()).isNull();
+
+        ResponseEntity<OrdersPageResponse> currentAgain = getOrders(today, today, current.getHeaders().getETag());
+        assertThat(currentAgain.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(currentAgain.getBody().orders()).anyMatch(order -> order.id().equals(created.getId()));
+        assertThat(getOrders(today, today, "W/" + currentAgain.getHeaders().getETag()).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void ordersVersion_growsWithEveryChangeInRange() {
+        LocalDate day = LocalDate.of(2003, 5, 10);
+        long before = dataVersionRegistry.ordersVersion(day.minusDays(1), day.plusDays(1));
+
+        dataVersionRegistry.orderDateChanged(day);
+        dataVersionRegistry.orderDateChanged(day.plusDays(5));
+
+        assertThat(dataVersionRegistry.ordersVersion(day.minusDays(1), day.plusDays(1))).isEqualTo(before + 1);
+        assertThat(dataVersionRegistry.ordersVersion(day.plusDays(2), day.plusDays(4))).isZero();
+    }
+
+    private ResponseEntity<OrdersPageResponse> getOrders(LocalDate from, LocalDate to, String ifNoneMatch) {
+        return managerOrderController.getOrders(from, to, null, null, null, null, 0, 50, null, false, ifNoneMatch);
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
@@ -0,0 +1,219 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.UserAccount;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.repository.UserAccountRepository;
+import pl.restaurant.restaurantbackend.service.AuthService.AuthSession;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:kitchenorders;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("test")
+class KitchenOrderBroadcasterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StandardWebSocketClient client = new StandardWebSocketClient();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private WebSocketSession station;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private SocketTicketService socketTicketService;
+
+    @Autowired
+    private KitchenOrderBroadcaster kitchenOrderBroadcaster;
+
+    @AfterEach
+    void closeStation() throws Exception {
+        if (station != null && station.isOpen()) {
+            station.close();
+        }
+    }
+
+    @Test
+    void station_receivesOnlySubscribedOrdersIncludingOnesLeavingTheStatus() throws Exception {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        station = connect(ticket(employeeToken()), received);
+
+        station.sendMessage(new TextMessage("{\"type\":\"subscribe\",\"statuses\":[\"W realizacji\"],\"types\":[\"na wynos\"]}"));
+        assertThat(next(received).path("type").asText()).isEqualTo("subscribed");
+
+        orderService.createOrder(new CreateOrderRequest("na miejscu", List.of(new CreateOrderRequest.Item(burger.getId(), 1))));
+        OrderEntity takeaway = orderService.createOrder(
+                new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 2))));
+
+        // zamowienie na miejscu nie pasuje do filtra - pierwsza wiadomosc dotyczy juz zamowienia na wynos
+        JsonNode created = next(received);
+        assertThat(created.path("type").asText()).isEqualTo("orders");
+        assertThat(created.path("orders")).hasSize(1);
+        assertThat(created.path("orders").get(0).path("id").asLong()).isEqualTo(takeaway.getId());
+        assertThat(created.path("orders").get(0).path("items").get(0).path("quantity").asInt()).isEqualTo(2);
+
+        orderService.changeOrderStatus(takeaway.getId(), "Gotowe");
+        JsonNode left = next(received).path("orders").get(0);
+        assertThat(left.path("status").asText()).isEqualTo("Gotowe");
+        assertThat(left.path("version").asLong()).isGreaterThan(created.path("orders").get(0).path("version").asLong());
+
+        // "Gotowe" -> "Zrealizowane" nie dotyczy juz stanowiska
+        orderService.changeOrderStatus(takeaway.getId(), "Zrealizowane");
+        OrderEntity another = orderService.createOrder(
+                new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1))));
+        assertThat(next(received).path("orders").get(0).path("id").asLong()).isEqualTo(another.getId());
+    }
+
+    @Test
+    void handshake_requiresSingleUseTicket() throws Exception {
+        String token = employeeToken();
+        assertThatThrownBy(() -> connect(null, new LinkedBlockingQueue<>())).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> connect("nieprawidlowy", new LinkedBlockingQueue<>())).isInstanceOf(ExecutionException.class);
+        // sam JWT nie otwiera juz kanalu
+        assertThatThrownBy(() -> connect(token, new LinkedBlockingQueue<>())).isInstanceOf(ExecutionException.class);
+        assertThat(http.send(ticketRequest(null), HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(401);
+
+        String ticket = ticket(token);
+        station = connect(ticket, new LinkedBlockingQueue<>());
+        assertThat(station.isOpen()).isTrue();
+        assertThatThrownBy(() -> connect(ticket, new LinkedBlockingQueue<>())).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    void heartbeat_closesStationWhenTokenExpires() throws Exception {
+        AuthSession shortLived = new AuthSession("krotki-token", "kuchnia", "employee", Instant.now().plusMillis(500));
+        BlockingQueue<CloseStatus> closed = new LinkedBlockingQueue<>();
+        station = client.execute(new TextWebSocketHandler() {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+                closed.add(status);
+            }
+        }, headers(), URI.create(socketUrl(socketTicketService.issue(shortLived).ticket()))).get(5, TimeUnit.SECONDS);
+
+        kitchenOrderBroadcaster.heartbeat();
+        assertThat(station.isOpen()).isTrue();
+        Thread.sleep(600);
+        kitchenOrderBroadcaster.heartbeat();
+
+        assertThat(closed.poll(5, TimeUnit.SECONDS)).extracting(CloseStatus::getCode).isEqualTo(CloseStatus.POLICY_VIOLATION.getCode());
+    }
+
+    @Test
+    void stop_closesStationsWithGoingAway() throws Exception {
+        BlockingQueue<CloseStatus> closed = new LinkedBlockingQueue<>();
+        station = client.execute(new TextWebSocketHandler() {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+                closed.add(status);
+            }
+        }, headers(), URI.create(socketUrl(ticket(employeeToken())))).get(5, TimeUnit.SECONDS);
+
+        try {
+            kitchenOrderBroadcaster.stop();
+            assertThat(closed.poll(5, TimeUnit.SECONDS)).extracting(CloseStatus::getCode).isEqualTo(CloseStatus.GOING_AWAY.getCode());
+        } finally {
+            kitchenOrderBroadcaster.start();
+        }
+    }
+
+    private WebSocketSession connect(String ticket, BlockingQueue<String> received) throws Exception {
+        return client.execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                received.add(message.getPayload());
+            }
+        }, headers(), URI.create(socketUrl(ticket))).get(5, TimeUnit.SECONDS);
+    }
+
+    private WebSocketHttpHeaders headers() {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setOrigin("http://localhost:5173");
+        return headers;
+    }
+
+    private String socketUrl(String ticket) {
+        return "ws://localhost:" + port + "/api/ws/orders" + (ticket != null ? "?ticket=" + ticket : "");
+    }
+
+    private String ticket(String token) throws Exception {
+        HttpResponse<String> response = http.send(ticketRequest(token), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body()).path("ticket").asText();
+    }
+
+    private HttpRequest ticketRequest(String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/socket-ticket"))
+                .POST(HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private JsonNode next(BlockingQueue<String> received) throws Exception {
+        String message = received.poll(5, TimeUnit.SECONDS);
+        assertThat(message).as("kolejna wiadomosc stanowiska").isNotNull();
+        return objectMapper.readTree(message);
+    }
+
+    private String employeeToken() {
+        String username = "kuchnia-" + System.nanoTime();
+        UserAccount user = new UserAccount();
+        user.setUsername(username);
+        user.setPasswordHash(new BCryptPasswordEncoder().encode("kuchnia123"));
+        user.setRole("employee");
+        userAccountRepository.save(user);
+        return authService.authenticate(username, "kuchnia123").orElseThrow().token();
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
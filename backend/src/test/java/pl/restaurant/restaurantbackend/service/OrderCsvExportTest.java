@@ -0,0 +1,97 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:csvexport;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("test")
+class OrderCsvExportTest {
+    // wiecej niz jedna paczka kursora (500), zeby sprawdzic czyszczenie kontekstu miedzy paczkami
+    private static final int ORDERS = 1100;
+    private static boolean created;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createOrders() {
+        if (created) {
+            return;
+        }
+        MenuItem burger = menuItemRepository.save(menuItem("Burger", 25.0));
+        MenuItem fries = menuItemRepository.save(menuItem("Frytki", 8.5));
+        for (int start = 0; start < ORDERS; start += 200) {
+            List<CreateOrderRequest> requests = new ArrayList<>();
+            for (int i = start; i < Math.min(start + 200, ORDERS); i++) {
+                requests.add(new CreateOrderRequest(i % 3 == 0 ? "na wynos" : "na miejscu", List.of(
+                        new CreateOrderRequest.Item(burger.getId(), 1 + i % 2),
+                        new CreateOrderRequest.Item(fries.getId(), 1))));
+            }
+            orderService.createOrders(requests);
+        }
+        created = true;
+    }
+
+    @Test
+    void writeOrdersCsv_streamsSameRowsAsInMemoryExport() throws Exception {
+        OrderSearchCriteria criteria = todayCriteria();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        orderService.writeOrdersCsv(criteria, output);
+
+        String streamed = output.toString(StandardCharsets.UTF_8);
+        String inMemory = transactionTemplate.execute(status ->
+                orderService.generateOrdersCsv(orderService.findOrders(criteria), null, null, null, null));
+        assertThat(streamed.split("\n")).hasSizeGreaterThan(ORDERS);
+        assertThat(streamed).isEqualTo(inMemory);
+    }
+
+    @Test
+    void aggregatedStatsCsv_matchesInMemoryStats() {
+        OrderSearchCriteria criteria = todayCriteria();
+
+        String aggregated = orderService.generateStatsCsv(orderService.aggregateStats(criteria));
+
+        String inMemory = transactionTemplate.execute(status ->
+                orderService.generateStatsCsv(orderService.findOrders(criteria), null, null, null, null));
+        assertThat(aggregated)
+                .isEqualTo(inMemory)
+                .contains("Najczesciej kupowany produkt,Burger");
+    }
+
+    private OrderSearchCriteria todayCriteria() {
+        return OrderSearchCriteria.builder().dateFrom(LocalDate.now()).dateTo(LocalDate.now()).build();
+    }
+
+    private MenuItem menuItem(String name, double price) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
@@ -0,0 +1,172 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderIdempotencyKey;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.repository.OrderIdempotencyKeyRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+import pl.restaurant.restaurantbackend.service.OrderIdempotencyService.IdempotencyConflictException;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderIdempotencyServiceTest {
+    private static final CreateOrderRequest REQUEST =
+            new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(1L, 2)));
+
+    @Autowired
+    private OrderIdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderIntakePipeline orderIntakePipeline;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @AfterEach
+    void cleanKeys() {
+        keyRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedKey_returnsOriginalOrderWithoutCreatingAnother() {
+        AtomicInteger created = new AtomicInteger();
+        Function<Function<OrderEntity, OrderIdempotencyKey>, OrderEntity> createOrder =
+                keyRow -> save(order(created.incrementAndGet()), keyRow);
+
+        OrderDto first = idempotencyService.execute("kiosk-1-a", REQUEST, createOrder);
+        OrderDto retry = idempotencyService.execute("kiosk-1-a", REQUEST, createOrder);
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(created).hasValue(1);
+        assertThatThrownBy(() -> idempotencyService.execute("kiosk-1-a",
+                new CreateOrderRequest("na miejscu", REQUEST.items()), createOrder))
+                .isInstanceOf(IdempotencyConflictException.class);
+    }
+
+    @Test
+    void concurrentDuplicates_waitForFirstRequest() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderDto>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("kiosk-2-a", REQUEST, keyRow -> {
+                        sleep(200);
+                        return save(order(created.incrementAndGet()), keyRow);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<OrderDto> result : results) {
+                assertThat(result.get().orderNumber()).isEqualTo(1L);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(created).hasValue(1);
+    }
+
+    @Test
+    void persistedKey_isReplayedAfterInMemoryStoreIsLost() {
+        OrderDto first = idempotencyService.execute("kiosk-3-a", REQUEST, keyRow -> save(order(7), keyRow));
+
+        // nowa instancja = pusta pamiec, jak po restarcie aplikacji
+        OrderIdempotencyService restarted = new OrderIdempotencyService(keyRepository, objectMapper, 100, 60);
+        OrderDto replayed = restarted.execute("kiosk-3-a", REQUEST, keyRow -> {
+            throw new AssertionError("Zamowienie nie powinno byc tworzone ponownie");
+        });
+
+        assertThat(replayed).isEqualTo(first);
+    }
+
+    @Test
+    void keyRow_isWrittenInOrderTransaction() {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        CreateOrderRequest request = new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1)));
+
+        OrderDto order = idempotencyService.execute("kiosk-4-a", request,
+                keyRow -> orderIntakePipeline.createOrder(request, keyRow));
+
+        assertThat(orderRepository.findById(order.id())).isPresent();
+        assertThat(keyRepository.findById("kiosk-4-a")).isPresent();
+
+        // wiersz klucza odrzucony przez baze (request_hash NOT NULL) - zamowienie wycofane razem z nim
+        long ordersBefore = orderRepository.count();
+        assertThatThrownBy(() -> orderIntakePipeline.createOrder(request,
+                saved -> new OrderIdempotencyKey("kiosk-4-b", null, "{}", LocalDateTime.now())))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(orderRepository.count()).isEqualTo(ordersBefore);
+        assertThat(keyRepository.findById("kiosk-4-b")).isEmpty();
+    }
+
+    // w miejsce transakcji zamowienia - zapisuje tylko wiersz klucza, jak OrderService.createOrder
+    private OrderEntity save(OrderEntity order, Function<OrderEntity, OrderIdempotencyKey> keyRow) {
+        if (keyRow != null) {
+            keyRepository.save(keyRow.apply(order));
+        }
+        return order;
+    }
+
+    private static OrderEntity order(long number) {
+        OrderEntity order = new OrderEntity();
+        order.setId(number);
+        order.setOrderNumber(number);
+        order.setOrderDate(LocalDate.of(2024, 5, 1));
+        order.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        order.setType("na wynos");
+        order.setStatus("W realizacji");
+        order.setItems(List.of());
+        return order;
+    }
+
+    private static MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:intakepipeline;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.orders.group-commit.enabled=true",
+        "app.orders.group-commit.window-ms=20",
+        "app.orders.group-commit.max-batch=10"
+})
+@ActiveProfiles("test")
+class OrderIntakePipelineTest {
+
+    @Autowired
+    private OrderIntakePipeline orderIntakePipeline;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Test
+    void createOrder_commitsConcurrentOrdersAndRejectsInvalidOnesIndividually() throws Exception {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger", true));
+        MenuItem hidden = menuItemRepository.save(menuItem("Hidden", false));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderEntity>> accepted = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                accepted.add(executor.submit(() -> orderIntakePipeline.createOrder(request(burger))));
+            }
+            Future<OrderEntity> rejected = executor.submit(() -> orderIntakePipeline.createOrder(request(hidden)));
+
+            List<Long> numbers = new ArrayList<>();
+            for (Future<OrderEntity> future : accepted) {
+                OrderEntity order = future.get();
+                assertThat(order.getId()).isNotNull();
+                numbers.add(order.getOrderNumber());
+            }
+            assertThat(numbers).doesNotHaveDuplicates();
+            assertThatThrownBy(rejected::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("niedostepna");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CreateOrderRequest request(MenuItem menuItem) {
+        return new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(menuItem.getId(), 1)));
+    }
+
+    private MenuItem menuItem(String name, boolean active) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(active);
+        return item;
+    }
+}
@@ -0,0 +1,145 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// obciazenie przyjmowania zamowien z wielu watkow; parametry przez -D, np.:
+// ./mvnw test -Pbenchmark -Dtest=OrderIntakeStressBenchmarkTest -Dstress.orders=20000 -Dstress.threads=128 \
+//     -Dstress.blockSize=1 -Dstress.groupCommit=true
+// lokalny MySQL zamiast H2: -Dstress.mysqlUrl=jdbc:mysql://localhost:3306/restaurant_stress -Dstress.mysqlUser=... -Dstress.mysqlPassword=...
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class OrderIntakeStressBenchmarkTest {
+    private static final int ORDERS = Integer.getInteger("stress.orders", 5000);
+    private static final int THREADS = Integer.getInteger("stress.threads", 64);
+
+    @Autowired
+    private OrderIntakePipeline orderIntakePipeline;
+
+    @Autowired
+    private OrderNumberAllocator orderNumberAllocator;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @DynamicPropertySource
+    static void stressProperties(DynamicPropertyRegistry registry) {
+        String mysqlUrl = System.getProperty("stress.mysqlUrl");
+        if (mysqlUrl != null && !mysqlUrl.isBlank()) {
+            registry.add("spring.datasource.url", () -> mysqlUrl);
+            registry.add("spring.datasource.username", () -> System.getProperty("stress.mysqlUser", "root"));
+            registry.add("spring.datasource.password", () -> System.getProperty("stress.mysqlPassword", ""));
+            registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+        } else {
+            registry.add("spring.datasource.url", () -> "jdbc:h2:mem:intakestress;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        }
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> System.getProperty("stress.poolSize", "20"));
+        registry.add("app.orders.number-block-size", () -> System.getProperty("stress.blockSize", "20"));
+        registry.add("app.orders.group-commit.enabled", () -> System.getProperty("stress.groupCommit", "false"));
+    }
+
+    @BeforeEach
+    void removeSeededOrders() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCreateOrder_keepsNumbersUniqueAndGapFree() throws Exception {
+        List<Long> menuItemIds = menuItemRepository.findAll().stream()
+                .filter(MenuItem::isActive)
+                .map(MenuItem::getId)
+                .collect(Collectors.toList());
+        OrderNumberAllocator.AllocationStats before = orderNumberAllocator.stats();
+        long[] latencies = new long[ORDERS];
+        ConcurrentLinkedQueue<OrderEntity> created = new ConcurrentLinkedQueue<>();
+        AtomicInteger nextOrder = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long elapsedNanos;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = nextOrder.getAndIncrement(); n < ORDERS; n = nextOrder.getAndIncrement()) {
+                        CreateOrderRequest request = new CreateOrderRequest(n % 2 == 0 ? "na wynos" : "na miejscu", List.of(
+                                new CreateOrderRequest.Item(menuItemIds.get(n % menuItemIds.size()), 1 + n % 3)));
+                        long started = System.nanoTime();
+                        created.add(orderIntakePipeline.createOrder(request));
+                        latencies[n] = System.nanoTime() - started;
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsedNanos = System.nanoTime() - started;
+        } finally {
+            executor.shutdownNow();
+        }
+        OrderNumberAllocator.AllocationStats after = orderNumberAllocator.stats();
+
+        // numery z bazy, a nie z odpowiedzi - sprawdzamy to, co faktycznie zostalo zapisane
+        Map<LocalDate, List<Long>> numbersByDate = new TreeMap<>();
+        for (OrderEntity order : orderRepository.findAll()) {
+            numbersByDate.computeIfAbsent(order.getOrderDate(), date -> new ArrayList<>()).add(order.getOrderNumber());
+        }
+        assertThat(created).hasSize(ORDERS);
+        assertThat(numbersByDate.values().stream().mapToInt(List::size).sum()).isEqualTo(ORDERS);
+        numbersByDate.forEach((date, numbers) -> {
+            numbers.sort(null);
+            assertThat(numbers).as("numery dla %s", date).doesNotHaveDuplicates();
+            assertThat(numbers.get(numbers.size() - 1) - numbers.get(0) + 1)
+                    .as("numery dla %s bez luk", date)
+                    .isEqualTo(numbers.size());
+        });
+
+        Arrays.sort(latencies);
+        long reservations = after.reservations() - before.reservations();
+        long reservationMillis = (after.reservationNanos() - before.reservationNanos()) / 1_000_000;
+        System.out.printf("%d orders, %d threads: %.0f orders/s%n", ORDERS, THREADS, ORDERS / (elapsedNanos / 1_000_000_000.0));
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1_000_000.0);
+        System.out.printf("counter reservations: %d, time holding/waiting on daily_order_counter: %d ms (%.2f ms per reservation)%n",
+                reservations, reservationMillis, reservations == 0 ? 0.0 : (double) reservationMillis / reservations);
+    }
+
+    private double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,147 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderIdempotencyKey;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.repository.OrderIdempotencyKeyRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderjournal;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.orders.journal.enabled=true"
+})
+@ActiveProfiles("test")
+class OrderJournalTest {
+    @TempDir
+    static Path journalDir;
+
+    @Autowired
+    private OrderIntakePipeline orderIntakePipeline;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderIdempotencyKeyRepository keyRepository;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.orders.journal.dir", () -> journalDir.toString());
+    }
+
+    @Test
+    void createOrder_acknowledgesBeforeDatabaseWriteAndDrainsInBackground() throws Exception {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+
+        OrderEntity acknowledged = orderIntakePipeline.createOrder(
+                new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 2))));
+
+        assertThat(acknowledged.getOrderNumber()).isNotNull();
+        assertThat(acknowledged.getId()).isNull();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (orderRepository.findExistingOrderNumbers(acknowledged.getOrderDate(), List.of(acknowledged.getOrderNumber())).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(orderRepository.findExistingOrderNumbers(acknowledged.getOrderDate(), List.of(acknowledged.getOrderNumber())))
+                .containsExactly(acknowledged.getOrderNumber());
+    }
+
+    @Test
+    void createOrder_drainsIdempotencyKeyTogetherWithOrder() throws Exception {
+        MenuItem burger = menuItemRepository.save(menuItem("Frytki"));
+
+        OrderEntity acknowledged = orderIntakePipeline.createOrder(
+                new CreateOrderRequest("na miejscu", List.of(new CreateOrderRequest.Item(burger.getId(), 1))),
+                order -> new OrderIdempotencyKey("journal-key-1", "hash", "{}", LocalDateTime.now()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (keyRepository.findById("journal-key-1").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(keyRepository.findById("journal-key-1")).isPresent();
+        assertThat(orderRepository.findExistingOrderNumbers(acknowledged.getOrderDate(), List.of(acknowledged.getOrderNumber())))
+                .containsExactly(acknowledged.getOrderNumber());
+    }
+
+    @Test
+    void start_replaysJournalIdempotentlyAndSkipsTornEntry(@TempDir Path restartDir) throws Exception {
+        LocalDate orderDate = LocalDate.of(2001, 3, 4);
+        OrderJournal.JournalEntry entry = new OrderJournal.JournalEntry(orderDate, 7L, LocalDateTime.of(2001, 3, 4, 12, 0),
+                "na miejscu", "W realizacji", 1L, List.of(new OrderJournal.JournalItem(1L, "Burger", "Burger", 25.0, 1)), null);
+        String line = objectMapper.writeValueAsString(entry);
+        // wpis powtorzony (zapis do bazy przed restartem) i urwany ostatni wiersz
+        Files.writeString(restartDir.resolve("orders.journal"),
+                line + "\n" + line + "\n" + line.substring(0, line.length() / 2), StandardCharsets.UTF_8);
+
+        for (int run = 0; run < 2; run++) {
+            OrderJournal journal = new OrderJournal(orderService, objectMapper, true, restartDir.toString(), 10);
+            journal.start();
+            journal.stop();
+        }
+
+        assertThat(orderRepository.findExistingOrderNumbers(orderDate, List.of(7L))).containsExactly(7L);
+        assertThat(Files.size(restartDir.resolve("orders.journal"))).isZero();
+    }
+
+    @Test
+    void start_movesEntryRejectedByDatabaseToDeadLetterFileAndSavesTheRest(@TempDir Path restartDir) throws Exception {
+        LocalDate orderDate = LocalDate.of(2001, 3, 5);
+        List<OrderJournal.JournalItem> items = List.of(new OrderJournal.JournalItem(1L, "Burger", "Burger", 25.0, 1));
+        OrderJournal.JournalEntry first = new OrderJournal.JournalEntry(orderDate, 1L, LocalDateTime.of(2001, 3, 5, 12, 0),
+                "na miejscu", "W realizacji", 1L, items, null);
+        // brak createdAt - kolumna NOT NULL, baza odrzuci wpis przy kazdej probie
+        OrderJournal.JournalEntry rejected = new OrderJournal.JournalEntry(orderDate, 2L, null,
+                "na miejscu", "W realizacji", 1L, items, null);
+        OrderJournal.JournalEntry last = new OrderJournal.JournalEntry(orderDate, 3L, LocalDateTime.of(2001, 3, 5, 12, 5),
+                "na wynos", "W realizacji", 1L, items, null);
+        Files.writeString(restartDir.resolve("orders.journal"), objectMapper.writeValueAsString(first) + "\n"
+                + objectMapper.writeValueAsString(rejected) + "\n" + objectMapper.writeValueAsString(last) + "\n", StandardCharsets.UTF_8);
+
+        OrderJournal journal = new OrderJournal(orderService, objectMapper, true, restartDir.toString(), 10);
+        journal.start();
+        journal.stop();
+
+        assertThat(orderRepository.findExistingOrderNumbers(orderDate, List.of(1L, 2L, 3L))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(Files.size(restartDir.resolve("orders.journal"))).isZero();
+        List<String> deadLetters = Files.readAllLines(restartDir.resolve("orders.journal.dead"), StandardCharsets.UTF_8);
+        assertThat(deadLetters).hasSize(1);
+        assertThat(objectMapper.readValue(deadLetters.get(0), OrderJournal.JournalEntry.class).orderNumber()).isEqualTo(2L);
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
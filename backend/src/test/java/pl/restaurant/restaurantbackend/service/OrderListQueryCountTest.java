@@ -0,0 +1,122 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.dto.OrderStatusUpdateRequest;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderlistqueries;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class OrderListQueryCountTest {
+    private static final int ORDERS = 60;
+    private static final Set<Long> createdIds = new HashSet<>();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void createOrders() {
+        if (!createdIds.isEmpty()) {
+            return;
+        }
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        MenuItem fries = menuItemRepository.save(menuItem("Frytki"));
+        List<CreateOrderRequest> requests = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            requests.add(new CreateOrderRequest("na wynos", List.of(
+                    new CreateOrderRequest.Item(burger.getId(), 1),
+                    new CreateOrderRequest.Item(fries.getId(), 2))));
+        }
+        List<OrderStatusUpdateRequest> updates = new ArrayList<>();
+        for (OrderService.BatchOrderResult result : orderService.createOrders(requests)) {
+            createdIds.add(result.order().getId());
+            updates.add(new OrderStatusUpdateRequest(result.order().getId(), "Gotowe", null));
+        }
+        orderService.changeOrderStatuses(updates);
+    }
+
+    @Test
+    void findOrderDtos_usesSameNumberOfStatementsForAnyPageSize() {
+        long smallPage = statementsFor(5);
+        long largePage = statementsFor(50);
+
+        // strona, licznik, pozycje i historia - niezaleznie od liczby zamowien na stronie
+        assertThat(largePage).isEqualTo(smallPage);
+        assertThat(largePage).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void findOrderDtosAfter_walksAllOrdersWithoutCountQuery() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().build();
+        List<Long> expected = orderService.findOrderDtos(criteria, PageRequest.of(0, 500)).getContent().stream()
+                .map(OrderDto::id)
+                .toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Long> walked = new ArrayList<>();
+        OrderService.OrderCursor after = null;
+        do {
+            statistics.clear();
+            OrderService.OrderSlice slice = orderService.findOrderDtosAfter(criteria, after, 7, false);
+            // strona, pozycje i historia - bez COUNT(*), niezaleznie od tego, jak daleko jest strona
+            assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+            assertThat(slice.totalElements()).isNull();
+            slice.orders().forEach(order -> walked.add(order.id()));
+            after = slice.nextCursor() != null ? OrderService.OrderCursor.parse(slice.nextCursor()) : null;
+        } while (after != null);
+
+        assertThat(walked).containsExactlyElementsOf(expected);
+        assertThat(orderService.findOrderDtosAfter(criteria, null, 7, true).totalElements()).isEqualTo((long) expected.size());
+    }
+
+    private long statementsFor(int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Page<OrderDto> page = orderService.findOrderDtos(OrderSearchCriteria.builder().build(), PageRequest.of(0, pageSize));
+        long statements = statistics.getPrepareStatementCount();
+
+        // nowe zamowienia maja najwyzsze numery, wiec wypelniaja pierwsza strone przed danymi z seeda
+        assertThat(page.getContent()).hasSize(pageSize).allSatisfy(order -> {
+            assertThat(createdIds).contains(order.id());
+            assertThat(order.items()).hasSize(2);
+            assertThat(order.statusHistory()).extracting("status").containsExactly("Gotowe");
+        });
+        return statements;
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
@@ -0,0 +1,119 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.restaurant.restaurantbackend.model.DailyOrderCounter;
+import pl.restaurant.restaurantbackend.repository.DailyOrderCounterRepository;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+// uruchamiany profilem: ./mvnw test -Pbenchmark
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class OrderNumberAllocatorBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int NUMBERS_PER_THREAD = 250;
+    private static final LocalDate LOCKING_DATE = LocalDate.of(2000, 1, 1);
+    private static final LocalDate BLOCK_DATE = LocalDate.of(2000, 1, 2);
+
+    @Autowired
+    private DailyOrderCounterRepository counterRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanCounters() {
+        counterRepository.deleteAllById(List.of(LOCKING_DATE, BLOCK_DATE));
+    }
+
+    @Test
+    void compareRowLockPerOrderWithBlockReservation() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // dotychczasowa sciezka: blokada wiersza licznika i flush przy kazdym zamowieniu
+        LongSupplier lockingPath = () -> transaction.execute(status -> {
+            DailyOrderCounter counter = counterRepository.findByOrderDate(LOCKING_DATE)
+                    .orElseGet(() -> counterRepository.saveAndFlush(new DailyOrderCounter(LOCKING_DATE, 0L)));
+            Long number = counter.nextValue();
+            counterRepository.saveAndFlush(counter);
+            return number;
+        });
+        // rozgrzewka tworzy wiersz licznika, zeby watki nie scigaly sie o jego zalozenie
+        lockingPath.getAsLong();
+
+        OrderNumberAllocator allocator = new OrderNumberAllocator(counterRepository, orderRepository, transactionManager, 50);
+        Result locking = measure("row lock per order", lockingPath);
+        Result block = measure("block reservation (50)", () -> allocator.next(BLOCK_DATE));
+
+        System.out.println(locking);
+        System.out.println(block);
+        System.out.printf("block reservations: %d, time in reservations: %d ms%n",
+                allocator.stats().reservations(), allocator.stats().reservationNanos() / 1_000_000);
+
+        assertThat(locking.uniqueNumbers()).isEqualTo(THREADS * NUMBERS_PER_THREAD);
+        assertThat(block.uniqueNumbers()).isEqualTo(THREADS * NUMBERS_PER_THREAD);
+    }
+
+    private Result measure(String label, LongSupplier nextNumber) throws Exception {
+        Queue<Long> numbers = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < NUMBERS_PER_THREAD; n++) {
+                        numbers.add(nextNumber.getAsLong());
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - started;
+            Set<Long> unique = new HashSet<>(numbers);
+            return new Result(label, numbers.size(), unique.size(), elapsedNanos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Result(String label, int numbers, int uniqueNumbers, long elapsedNanos) {
+        double perSecond() {
+            return numbers / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %6d numbers in %6d ms -> %10.0f numbers/s",
+                    label, numbers, elapsedNanos / 1_000_000, perSecond());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+// jedno polaczenie w puli - rezerwacja numerow (REQUIRES_NEW) nie moze czekac na polaczenie trzymane przez
+// transakcje zamowienia, bo skonczyloby sie to timeoutem puli
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderpoolsize;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "app.orders.number-block-size=2"
+})
+@ActiveProfiles("test")
+class OrderNumberPoolSizeTest {
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Test
+    void createOrder_reservesNumbersWithSingleConnectionPool() {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        CreateOrderRequest request = new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1)));
+
+        // kilka uzupelnien puli numerow (po 2) i zakres dla paczki
+        OrderEntity first = orderService.createOrder(request);
+        for (int i = 0; i < 4; i++) {
+            orderService.createOrder(request);
+        }
+        List<OrderService.BatchOrderResult> batch = orderService.createOrders(List.of(request, request, request));
+
+        assertThat(batch).allSatisfy(result -> assertThat(result.order().getOrderNumber()).isGreaterThan(first.getOrderNumber()));
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
@@ -1,6 +1,7 @@
 package pl.restaurant.restaurantbackend.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -10,9 +11,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.dto.OrderStatusUpdateRequest;
 import pl.restaurant.restaurantbackend.dto.PublicOrderView;
+import pl.restaurant.restaurantbackend.dto.order.OrderDto;
+import pl.restaurant.restaurantbackend.dto.order.OrderStatusChangeDto;
 import pl.restaurant.restaurantbackend.model.DailyOrderCounter;
 import pl.restaurant.restaurantbackend.model.MenuItem;
 import pl.restaurant.restaurantbackend.model.OrderEntity;
@@ -43,12 +48,15 @@ class OrderServiceIntegrationTest {
     @Autowired
     private OrderStatusChangeRepository orderStatusChangeRepository;
 
+    @Autowired
+    private ActiveOrdersIndex activeOrdersIndex;
+
     @BeforeEach
     void cleanDatabase() {
         orderStatusChangeRepository.deleteAll();
         orderRepository.deleteAll();
-        counterRepository.deleteAll();
         menuItemRepository.deleteAll();
+        activeOrdersIndex.rebuild();
     }
 
     @Test
@@ -75,12 +83,37 @@ class OrderServiceIntegrationTest {
         OrderEntity firstOrder = orderService.createOrder(firstRequest);
         OrderEntity secondOrder = orderService.createOrder(secondRequest);
 
-        assertThat(firstOrder.getOrderNumber()).isEqualTo(1L);
-        assertThat(secondOrder.getOrderNumber()).isEqualTo(2L);
+        assertThat(secondOrder.getOrderNumber()).isEqualTo(firstOrder.getOrderNumber() + 1);
         assertThat(orderRepository.count()).isEqualTo(2);
+        assertThat(firstOrder.getMenuVersion()).isNotNull();
+        assertThat(firstOrder.getItems()).extracting(OrderItem::getPrice).containsExactly(25.0, 8.5);
 
+        // licznik w bazie wskazuje koniec zarezerwowanej puli, a nie ostatni wydany numer
         DailyOrderCounter counter = counterRepository.findByOrderDate(LocalDate.now()).orElseThrow();
-        assertThat(counter.getLastNumber()).isEqualTo(2L);
+        assertThat(counter.getLastNumber()).isGreaterThanOrEqualTo(secondOrder.getOrderNumber());
+    }
+
+    @Test
+    void createOrders_savesValidOrdersAndReportsRejectedOnes() {
+        MenuItem burger = menuItemRepository.save(buildMenuItem("Burger", 25.0));
+        MenuItem hidden = buildMenuItem("Hidden", 5.0);
+        hidden.setActive(false);
+        hidden = menuItemRepository.save(hidden);
+
+        List<OrderService.BatchOrderResult> results = orderService.createOrders(List.of(
+                new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1))),
+                new CreateOrderRequest("na miejscu", List.of(new CreateOrderRequest.Item(hidden.getId(), 1))),
+                new CreateOrderRequest("na miejscu", List.of(new CreateOrderRequest.Item(burger.getId(), 3)))
+        ));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(1).order()).isNull();
+        assertThat(results.get(1).error()).contains("niedostepna");
+        OrderEntity first = results.get(0).order();
+        OrderEntity third = results.get(2).order();
+        assertThat(third.getOrderNumber()).isEqualTo(first.getOrderNumber() + 1);
+        assertThat(third.getItems()).singleElement().extracting(OrderItem::getQuantity).isEqualTo(3);
+        assertThat(orderRepository.count()).isEqualTo(2);
     }
 
     @Test
@@ -91,8 +124,12 @@ class OrderServiceIntegrationTest {
                 List.of(new CreateOrderRequest.Item(soup.getId(), 1))
         ));
 
-        orderService.changeOrderStatus(order.getId(), "Zrealizowane");
+        OrderDto dto = orderService.changeOrderStatus(order.getId(), "Zrealizowane");
 
+        assertThat(dto.status()).isEqualTo("Zrealizowane");
+        assertThat(dto.finishedAt()).isNotNull();
+        assertThat(dto.items()).hasSize(1);
+        assertThat(dto.statusHistory()).extracting(OrderStatusChangeDto::status).containsExactly("Zrealizowane");
         OrderEntity updated = orderRepository.findById(order.getId()).orElseThrow();
         assertThat(updated.getStatus()).isEqualTo("Zrealizowane");
         assertThat(updated.getFinishedAt()).isNotNull();
@@ -103,6 +140,79 @@ class OrderServiceIntegrationTest {
                         && "Zrealizowane".equals(change.getStatus()));
     }
 
+    @Test
+    void changeOrderStatus_rejectsStaleExpectedVersion() {
+        MenuItem cake = menuItemRepository.save(buildMenuItem("Cake", 12.0));
+        OrderEntity order = orderService.createOrder(new CreateOrderRequest(
+                "na wynos",
+                List.of(new CreateOrderRequest.Item(cake.getId(), 1))
+        ));
+        orderRepository.flush();
+        long initialVersion = order.getVersion();
+
+        orderService.changeOrderStatus(order.getId(), "Zrealizowane", initialVersion);
+        orderRepository.flush();
+
+        // drugie stanowisko z nieaktualna wersja nie moze cofnac statusu ani wyczyscic finishedAt
+        assertThatThrownBy(() -> orderService.changeOrderStatus(order.getId(), "Gotowe", initialVersion))
+                .isInstanceOf(OrderService.OrderVersionConflictException.class);
+        OrderEntity current = orderRepository.findById(order.getId()).orElseThrow();
+        assertThat(current.getStatus()).isEqualTo("Zrealizowane");
+        assertThat(current.getFinishedAt()).isNotNull();
+        assertThat(current.getVersion()).isEqualTo(initialVersion + 1);
+    }
+
+    @Test
+    void changeOrderStatuses_appliesAllTransitionsOrNone() {
+        MenuItem tea = menuItemRepository.save(buildMenuItem("Tea", 6.0));
+        CreateOrderRequest request = new CreateOrderRequest("na miejscu", List.of(new CreateOrderRequest.Item(tea.getId(), 1)));
+        OrderEntity first = orderService.createOrder(request);
+        OrderEntity second = orderService.createOrder(request);
+
+        List<OrderDto> updated = orderService.changeOrderStatuses(List.of(
+                new OrderStatusUpdateRequest(second.getId(), "Gotowe", null),
+                new OrderStatusUpdateRequest(first.getId(), "Zrealizowane", null)
+        ));
+
+        assertThat(updated).extracting(OrderDto::id).containsExactly(second.getId(), first.getId());
+        assertThat(updated).extracting(OrderDto::status).containsExactly("Gotowe", "Zrealizowane");
+        assertThat(updated.get(1).finishedAt()).isNotNull();
+
+        assertThatThrownBy(() -> orderService.changeOrderStatuses(List.of(
+                new OrderStatusUpdateRequest(first.getId(), "Anulowane", null),
+                new OrderStatusUpdateRequest(second.getId(), "Nieznany", null)
+        ))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(orderRepository.findById(first.getId()).orElseThrow().getStatus()).isEqualTo("Zrealizowane");
+    }
+
+    @Test
+    // bez transakcji testu - kursor nie przekracza numerow zmian z niezatwierdzonych transakcji
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findChangesSince_returnsOnlyOrdersChangedAfterCursor() {
+        MenuItem juice = menuItemRepository.save(buildMenuItem("Juice", 7.0));
+        CreateOrderRequest request = new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(juice.getId(), 1)));
+        OrderEntity first = orderService.createOrder(request);
+        OrderEntity second = orderService.createOrder(request);
+
+        OrderService.OrderChanges created = orderService.findChangesSince(0, 100);
+        assertThat(created.orders()).extracting(OrderDto::id).containsExactly(first.getId(), second.getId());
+        assertThat(orderService.findChangesSince(created.cursor(), 100).orders()).isEmpty();
+
+        orderService.changeOrderStatus(first.getId(), "Gotowe");
+
+        OrderService.OrderChanges changed = orderService.findChangesSince(created.cursor(), 100);
+        assertThat(changed.orders()).singleElement().satisfies(order -> {
+            assertThat(order.id()).isEqualTo(first.getId());
+            assertThat(order.status()).isEqualTo("Gotowe");
+        });
+        assertThat(changed.cursor()).isGreaterThan(created.cursor());
+
+        OrderService.OrderChanges firstPage = orderService.findChangesSince(0, 1);
+        assertThat(firstPage.orders()).extracting(OrderDto::id).containsExactly(second.getId());
+        assertThat(orderService.findChangesSince(firstPage.cursor(), 1).orders()).extracting(OrderDto::id)
+                .containsExactly(first.getId());
+    }
+
     @Test
     void getActiveOrdersSnapshot_includesOrdersFromPreviousDay() {
         MenuItem coffee = menuItemRepository.save(buildMenuItem("Coffee", 9.0));
@@ -121,6 +231,8 @@ class OrderServiceIntegrationTest {
         previousDayOrder.setStatus("W realizacji");
         previousDayOrder.setItems(List.of(item));
         orderRepository.save(previousDayOrder);
+        // zapis z pominieciem OrderService - indeks widzi go po odbudowie, jak przy starcie aplikacji
+        activeOrdersIndex.rebuild();
 
         OrderService.ActiveOrdersSnapshot snapshot = orderService.getActiveOrdersSnapshot();
 
@@ -129,6 +241,31 @@ class OrderServiceIntegrationTest {
                 .contains(previousDayOrder.getOrderNumber());
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getActiveOrdersSnapshot_followsCommittedChanges() {
+        MenuItem water = menuItemRepository.save(buildMenuItem("Water", 4.0));
+        CreateOrderRequest request = new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(water.getId(), 1)));
+        OrderService.ActiveOrdersSnapshot empty = orderService.getActiveOrdersSnapshot();
+
+        OrderEntity first = orderService.createOrder(request);
+        OrderEntity second = orderService.createOrder(request);
+        OrderService.ActiveOrdersSnapshot created = orderService.getActiveOrdersSnapshot();
+        assertThat(created.orders()).extracting(PublicOrderView::id).containsExactly(first.getId(), second.getId());
+        assertThat(created.etag()).isNotEqualTo(empty.etag());
+        assertThat(orderService.getActiveOrdersSnapshot().etag()).isEqualTo(created.etag());
+
+        orderService.changeOrderStatus(first.getId(), "Gotowe");
+        orderService.changeOrderStatus(second.getId(), "Zrealizowane");
+        OrderService.ActiveOrdersSnapshot changed = orderService.getActiveOrdersSnapshot();
+        assertThat(changed.orders()).containsExactly(new PublicOrderView(first.getId(), first.getOrderNumber(), "Gotowe"));
+
+        // spoznione zdarzenie ze starszym numerem zmiany nie przywraca zrealizowanego zamowienia
+        activeOrdersIndex.onOrdersChanged(new OrderChangedEvent(List.of(new OrderChangedEvent.ChangedOrder(
+                second.getId(), second.getOrderDate(), second.getOrderNumber(), "W realizacji", second.getChangeSeq()))));
+        assertThat(orderService.getActiveOrdersSnapshot().orders()).extracting(PublicOrderView::id).containsExactly(first.getId());
+    }
+
     private MenuItem buildMenuItem(String name, double price) {
         MenuItem item = new MenuItem();
         item.setName(name);
@@ -5,9 +5,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -83,6 +87,25 @@ class OrderServiceReportTest {
         assertContainsText(pdfBytes, List.of("Statystyki testowe", "Liczba zamowien", "2", "Herbata", "21.00 zl"));
     }
 
+    @Test
+    void reportsUsePreloadedLogoAndEmbeddedFont() throws Exception {
+        byte[] pdfBytes = orderService.generateOrdersReport(List.of(), "Raport pusty", "2025-11-04", "2025-11-04");
+
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            PDResources resources = document.getPage(0).getResources();
+            List<String> fonts = new ArrayList<>();
+            for (COSName name : resources.getFontNames()) {
+                fonts.add(resources.getFont(name).getName());
+            }
+            boolean hasImage = false;
+            for (COSName name : resources.getXObjectNames()) {
+                hasImage |= resources.getXObject(name) instanceof PDImageXObject;
+            }
+            assertThat(hasImage).isTrue();
+            assertThat(fonts).anyMatch(font -> font.contains("LiberationSans"));
+        }
+    }
+
     private OrderItem item(String name, int quantity, double price) {
         OrderItem orderItem = new OrderItem();
         orderItem.setMenuItemId(1L);
@@ -0,0 +1,142 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.restaurant.restaurantbackend.dto.OrderSearchCriteria;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.model.OrderItem;
+import pl.restaurant.restaurantbackend.model.OrderStatus;
+import pl.restaurant.restaurantbackend.model.OrderType;
+import pl.restaurant.restaurantbackend.repository.OrderRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statsaggregation;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("test")
+class OrderStatsAggregationTest {
+    private static final int DAYS = 10;
+    private static final int ORDERS_PER_DAY = 60;
+    private static final String[] PRODUCTS = {"Burger", "Frytki", "Kawa", "Lemoniada", "Sernik"};
+    private static final double[] PRICES = {19.99, 8.5, 9.0, 7.49, 12.75};
+    private static boolean created;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createOrders() {
+        if (created) {
+            return;
+        }
+        Random random = new Random(42);
+        OrderStatus[] statuses = OrderStatus.values();
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate orderDate = LocalDate.now().minusDays(day);
+            for (int i = 0; i < ORDERS_PER_DAY; i++) {
+                // pelne milisekundy - jak znaczniki czasu zapisane w bazie, wiec Java i baza licza te same sekundy
+                LocalDateTime createdAt = orderDate.atTime(LocalTime.of(8 + random.nextInt(14), random.nextInt(60), random.nextInt(60)))
+                        .plusNanos(random.nextInt(1000) * 1_000_000L);
+                OrderEntity order = new OrderEntity();
+                order.setOrderDate(orderDate);
+                order.setOrderNumber(500L + i);
+                order.setCreatedAt(createdAt);
+                order.setOrderType(random.nextBoolean() ? OrderType.DINE_IN : OrderType.TAKEAWAY);
+                order.setOrderStatus(statuses[random.nextInt(statuses.length)]);
+                if (order.getOrderStatus() == OrderStatus.COMPLETED) {
+                    // co dziesiate z finishedAt przed createdAt (przestawiony zegar) - pomijane w czasie obslugi
+                    long millis = random.nextInt(10) == 0 ? -random.nextInt(60_000) : random.nextInt(3_600_000);
+                    order.setFinishedAt(createdAt.plusNanos(millis * 1_000_000L));
+                }
+                List<OrderItem> items = new ArrayList<>();
+                for (int line = 0, lines = 1 + random.nextInt(3); line < lines; line++) {
+                    int product = random.nextInt(PRODUCTS.length);
+                    items.add(item(PRODUCTS[product], 1 + random.nextInt(4), PRICES[product]));
+                }
+                order.setItems(items);
+                orders.add(order);
+            }
+        }
+        orderRepository.saveAll(orders);
+        created = true;
+    }
+
+    @Test
+    void aggregateStats_matchesStatsComputedFromOrders() {
+        LocalDate today = LocalDate.now();
+
+        assertSameAsFromOrders(OrderSearchCriteria.builder().dateFrom(today.minusDays(DAYS - 1)).dateTo(today).build());
+        assertSameAsFromOrders(OrderSearchCriteria.builder().dateFrom(today.minusDays(4)).dateTo(today.minusDays(4)).build());
+        assertSameAsFromOrders(OrderSearchCriteria.builder()
+                .dateFrom(today.minusDays(DAYS - 1)).dateTo(today)
+                .timeFrom(LocalTime.of(11, 0)).timeTo(LocalTime.of(14, 30))
+                .build());
+        assertSameAsFromOrders(OrderSearchCriteria.builder()
+                .dateFrom(today.minusDays(DAYS - 1)).dateTo(today)
+                .status("Zrealizowane")
+                .build());
+        assertSameAsFromOrders(OrderSearchCriteria.builder()
+                .dateFrom(today.minusDays(6)).dateTo(today.minusDays(2))
+                .type("na wynos")
+                .timeFrom(LocalTime.of(16, 0))
+                .build());
+    }
+
+    @Test
+    void aggregateStats_withoutMatchingOrders() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().status("nieznany").build();
+
+        assertThat(orderService.generateStatsCsv(orderService.aggregateStats(criteria))).isEqualTo(
+                "metric,value\n"
+                        + "Liczba zamowien,0\n"
+                        + "Najczesciej kupowany produkt,Brak\n"
+                        + "Suma wartosci zamowien,0.00\n"
+                        + "Srednia wartosc zamowienia,0.00\n"
+                        + "Sredni czas obslugi,-\n");
+    }
+
+    private void assertSameAsFromOrders(OrderSearchCriteria criteria) {
+        OrderService.SalesStats aggregated = orderService.aggregateStats(criteria);
+        OrderService.SalesStats fromOrders = transactionTemplate.execute(status -> {
+            SalesTally tally = new SalesTally();
+            orderService.findOrders(criteria).forEach(tally::addOrder);
+            return tally.toStats();
+        });
+
+        assertThat(aggregated.orders()).isEqualTo(fromOrders.orders()).isPositive();
+        assertThat(aggregated.topProduct()).isEqualTo(fromOrders.topProduct());
+        assertThat(aggregated.serviceCount()).isEqualTo(fromOrders.serviceCount());
+        assertThat(aggregated.serviceSeconds()).isEqualTo(fromOrders.serviceSeconds());
+        // suma double w innej kolejnosci - roznica najwyzej na ostatnich bitach, ponizej groszy
+        assertThat(aggregated.revenue()).isCloseTo(fromOrders.revenue(), within(1e-6));
+        assertThat(orderService.generateStatsCsv(aggregated)).isEqualTo(orderService.generateStatsCsv(fromOrders));
+    }
+
+    private OrderItem item(String name, int quantity, double price) {
+        OrderItem item = new OrderItem();
+        item.setMenuItemId(1L);
+        item.setName(name);
+        item.setQuantity(quantity);
+        item.setPrice(price);
+        return item;
+    }
+}
@@ -0,0 +1,165 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.model.OrderEntity;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderevents;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.orders.events.max-connections=3"
+})
+@ActiveProfiles("test")
+class PublicOrderEventBroadcasterTest {
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final List<EventStream> openStreams = new ArrayList<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private PublicOrderEventBroadcaster eventBroadcaster;
+
+    @AfterEach
+    void closeStreams() {
+        openStreams.forEach(EventStream::close);
+    }
+
+    @Test
+    void stream_sendsSnapshotThenChangesAndReplaysMissedEventsAfterReconnect() throws Exception {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        CreateOrderRequest request = new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1)));
+
+        EventStream first = open(null);
+        assertThat(first.next().name()).isEqualTo("snapshot");
+
+        OrderEntity created = orderService.createOrder(request);
+        SseEvent createdEvent = first.next();
+        assertThat(createdEvent.name()).isEqualTo("orders");
+        assertThat(createdEvent.data()).contains("\"id\":" + created.getId()).contains("W realizacji");
+
+        // zmiana, ktorej ekran nie widzial - po powrocie z Last-Event-ID dostaje tylko ja, bez pelnego stanu
+        orderService.changeOrderStatus(created.getId(), "Gotowe");
+        first.close();
+        EventStream resumed = open(createdEvent.id());
+        SseEvent missed = resumed.next();
+        assertThat(missed.name()).isEqualTo("orders");
+        assertThat(missed.data()).contains("\"id\":" + created.getId()).contains("Gotowe");
+
+        assertThat(open("nieznana-epoka-1").next().name()).isEqualTo("snapshot");
+    }
+
+    @Test
+    void stream_rejectsConnectionsAboveLimit() throws Exception {
+        // polaczenia z innych testow zwalniaja sie dopiero przy nieudanym zapisie, wiec dopelniamy do limitu
+        while (eventBroadcaster.connectionCount() < 3) {
+            open(null).next();
+        }
+
+        HttpResponse<Void> rejected = http.send(streamRequest(null), HttpResponse.BodyHandlers.discarding());
+
+        assertThat(rejected.statusCode()).isEqualTo(503);
+    }
+
+    private EventStream open(String lastEventId) throws Exception {
+        HttpResponse<Stream<String>> response = http.send(streamRequest(lastEventId), HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        EventStream stream = new EventStream(response.body());
+        openStreams.add(stream);
+        return stream;
+    }
+
+    private HttpRequest streamRequest(String lastEventId) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/public/orders/stream"))
+                .header("Accept", "text/event-stream")
+                .GET();
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return builder.build();
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+
+    private record SseEvent(String id, String name, String data) {}
+
+    // czyta strumien na osobnym watku, zeby next() mogl czekac z limitem czasu
+    private static final class EventStream {
+        private final Stream<String> lines;
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private final Thread reader;
+
+        private EventStream(Stream<String> lines) {
+            this.lines = lines;
+            this.reader = new Thread(() -> {
+                try {
+                    lines.forEach(received::add);
+                } catch (RuntimeException ex) {
+                    // strumien zamkniety w close()
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        SseEvent next() throws InterruptedException {
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            while (true) {
+                String line = received.poll(5, TimeUnit.SECONDS);
+                assertThat(line).as("kolejne zdarzenie ze strumienia").isNotNull();
+                if (line.isEmpty()) {
+                    if (name != null) {
+                        return new SseEvent(id, name, data.toString());
+                    }
+                    continue;
+                }
+                if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                }
+            }
+        }
+
+        void close() {
+            lines.close();
+            reader.interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import pl.restaurant.restaurantbackend.RestaurantBackendApplication;
+
+// zamkniecie aplikacji z podlaczonym ekranem - wlasny kontekst (nie z cache testow Springa), bo test go zamyka
+class PublicOrderEventShutdownTest {
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void contextClose_completesOpenStreamsBeforeGracefulShutdownWaits() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RestaurantBackendApplication.class)
+                .run("--spring.profiles.active=test", "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:ordereventsshutdown;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpResponse<InputStream> response = http.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/public/orders/stream"))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        BufferedReader lines = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+        assertThat(lines.readLine()).startsWith("id:");
+        CompletableFuture<Void> ended = CompletableFuture.runAsync(() -> {
+            try {
+                while (lines.readLine() != null) {
+                    // reszta pierwszego zdarzenia
+                }
+            } catch (Exception ex) {
+                // polaczenie zerwane zamiast zakonczone - future i tak sie konczy
+            }
+        });
+
+        long started = System.nanoTime();
+        context.close();
+
+        // graceful shutdown czekalby na otwarty strumien 30 s (spring.lifecycle.timeout-per-shutdown-phase)
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(10));
+        ended.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,150 @@
+package pl.restaurant.restaurantbackend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import pl.restaurant.restaurantbackend.dto.CreateOrderRequest;
+import pl.restaurant.restaurantbackend.model.MenuItem;
+import pl.restaurant.restaurantbackend.repository.MenuItemRepository;
+import pl.restaurant.restaurantbackend.service.OrderReportService.ReportRequest;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportFile;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportJob;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportJobNotReadyException;
+import pl.restaurant.restaurantbackend.service.ReportJobService.ReportQueueFullException;
+import pl.restaurant.restaurantbackend.service.ReportJobService.Status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reportjobs;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@ActiveProfiles("test")
+class ReportJobServiceTest {
+    @TempDir
+    static Path reportDir;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private OrderReportService orderReportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @DynamicPropertySource
+    static void reportProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.reports.jobs.dir", () -> reportDir.toString());
+    }
+
+    @Test
+    void finishedJob_servesSameReportAsDirectDownload() throws Exception {
+        MenuItem burger = menuItemRepository.save(menuItem("Burger"));
+        for (int i = 0; i < 3; i++) {
+            orderService.createOrder(new CreateOrderRequest("na wynos", List.of(new CreateOrderRequest.Item(burger.getId(), 1 + i))));
+        }
+        LocalDate today = LocalDate.now();
+
+        for (ReportRequest request : List.of(
+                new ReportRequest(false, true, today, today, null, null),
+                new ReportRequest(true, true, today, today, null, null),
+                new ReportRequest(false, false, today, today, null, null))) {
+            ReportJob job = awaitFinished(reportJobService.submit(request));
+
+            assertThat(job.status()).isEqualTo(Status.DONE);
+            assertThat(job.progress()).isEqualTo(100);
+            byte[] content;
+            try (InputStream input = reportJobService.open(job.id()).content()) {
+                content = input.readAllBytes();
+            }
+            if (request.format().equals("pdf")) {
+                // PDF zawiera date utworzenia i identyfikator - porownanie tylko naglowka
+                assertThat(new String(content, 0, 5, StandardCharsets.ISO_8859_1)).isEqualTo("%PDF-");
+            } else {
+                ByteArrayOutputStream direct = new ByteArrayOutputStream();
+                orderReportService.write(request, direct, progress -> {});
+                assertThat(content).isEqualTo(direct.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    void duplicateSubmission_attachesToPendingJob_andQueueIsBounded(@TempDir Path dir) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderReportService slowReports = new OrderReportService(null, null) {
+            @Override
+            public void write(ReportRequest request, OutputStream output, IntConsumer progress) throws Exception {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                output.write(request.filename().getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        ReportJobService jobs = new ReportJobService(slowReports, dir.toString(), 1, 1, 30);
+        LocalDate today = LocalDate.now();
+        ReportRequest orders = new ReportRequest(false, false, today.minusDays(30), today, null, null);
+        ReportRequest stats = new ReportRequest(true, false, today.minusDays(30), today, null, null);
+        try {
+            ReportJob running = jobs.submit(orders);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            ReportJob queued = jobs.submit(stats);
+
+            assertThat(jobs.submit(new ReportRequest(false, false, today.minusDays(30), today, null, null))).isSameAs(running);
+            assertThat(jobs.submit(stats)).isSameAs(queued);
+            assertThatThrownBy(() -> jobs.submit(new ReportRequest(true, true, today, today, null, null)))
+                    .isInstanceOf(ReportQueueFullException.class);
+            assertThatThrownBy(() -> jobs.open(running.id())).isInstanceOf(ReportJobNotReadyException.class);
+
+            release.countDown();
+            awaitFinished(running);
+            awaitFinished(queued);
+            ReportFile file = jobs.open(running.id());
+            try (InputStream input = file.content()) {
+                assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("zamowienia.pdf");
+            }
+            // gotowy raport nie jest wspoldzielony - kolejne zlecenie to nowe zadanie
+            ReportJob again = jobs.submit(orders);
+            assertThat(again.id()).isNotEqualTo(running.id());
+            awaitFinished(again);
+        } finally {
+            release.countDown();
+            jobs.stop();
+        }
+    }
+
+    private ReportJob awaitFinished(ReportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((job.status() == Status.QUEUED || job.status() == Status.RUNNING) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(job.status()).isEqualTo(Status.DONE);
+        return job;
+    }
+
+    private MenuItem menuItem(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setPrice(10.0);
+        item.setCategory("test");
+        item.setActive(true);
+        return item;
+    }
+}
@@ -1,9 +1,10 @@
-import { useCallback, useEffect, useMemo, useState } from "react";
+import { useCallback, useEffect, useMemo, useRef, useState } from "react";
 import { useNavigate } from "react-router-dom";
 import "./App.css";
 import { API_BASE_URL } from "./config";
 import { useAuth } from "./context/AuthContext";
 import { useLocale, useTranslate } from "./context/LocaleContext";
+import { openOrdersSocket } from "./orderSocket";
 
 const STATUS_FLOW = ["W realizacji", "Gotowe", "Zrealizowane", "Anulowane"] as const;
 type Status = typeof STATUS_FLOW[number];
@@ -26,9 +27,11 @@ const TABS: TabConfig[] = [
 type OrderRecord = {
   id: number;
   orderNumber: number;
+  orderDate?: string | null;
   createdAt: string | null;
   type: string;
   status: Status;
+  version?: number | null;
   items: { id: number; name: string; nameEn?: string | null; quantity: number; price: number }[];
 };
 
@@ -40,18 +43,38 @@ type OrdersResponse = {
   size: number;
 };
 
+type ChangesResponse = {
+  orders: OrderRecord[];
+  cursor: number;
+};
+
 const DEFAULT_PAGE_SIZE = 100;
+const CHANGES_LIMIT = 100;
+const CHANGES_POLL_MS = 3000;
+
+function todayIso() {
+  const now = new Date();
+  const pad = (value: number) => String(value).padStart(2, "0");
+  return `${now.getFullYear()}-${pad(now.getMonth() + 1)}-${pad(now.getDate())}`;
+}
 
 function EmployeeOrdersView() {
   const [orders, setOrders] = useState<OrderRecord[]>([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
   const [updating, setUpdating] = useState<number | null>(null);
+  const [bulkUpdating, setBulkUpdating] = useState(false);
   const [activeTab, setActiveTab] = useState<TabKey>("todo");
   const [hasLoaded, setHasLoaded] = useState(false);
   const [page, setPage] = useState(0);
   const [totalPages, setTotalPages] = useState(1);
   const [totalElements, setTotalElements] = useState(0);
+  // kursor z GET /api/orders/changes - po pelnym pobraniu listy odpytujemy juz tylko o zmiany
+  const changeCursorRef = useRef<number | null>(null);
+  const ordersRef = useRef<OrderRecord[]>([]);
+  const listEtagRef = useRef<{ url: string; etag: string } | null>(null);
+  // zmiany przychodza kanalem WebSocket; odpytywanie /changes tylko gdy kanal jest niedostepny
+  const [socketLive, setSocketLive] = useState(false);
   const auth = useAuth();
   const { language } = useLocale();
   const t = useTranslate();
@@ -79,15 +102,29 @@ function EmployeeOrdersView() {
         params.append("page", String(pageToLoad));
         params.append("size", String(DEFAULT_PAGE_SIZE));
         params.append("todayOnly", "true");
-        const res = await fetch(`${API_BASE_URL}/api/orders?${params.toString()}`, { headers: authHeaders });
+        // kursor pobierany przed lista: zmiany zapisane w trakcie pobierania listy przyjda ponownie jako delta
+        const cursorRes = await fetch(`${API_BASE_URL}/api/orders/changes`, { headers: authHeaders });
+        const cursorPayload = cursorRes.ok ? ((await cursorRes.json()) as Partial<ChangesResponse>) : null;
+        const cursor = typeof cursorPayload?.cursor === "number" ? cursorPayload.cursor : null;
+        const url = `${API_BASE_URL}/api/orders?${params.toString()}`;
+        const headers: Record<string, string> = { ...authHeaders };
+        if (listEtagRef.current?.url === url) {
+          headers["If-None-Match"] = listEtagRef.current.etag;
+        }
+        const res = await fetch(url, { headers });
         if (res.status === 304) {
+          // lista bez zmian od ostatniego pobrania - zmiany lokalne przyszly z /changes, kursor mozna przyjac
+          changeCursorRef.current = cursor;
           setHasLoaded(true);
           return;
         }
         if (!res.ok) throw new Error(t("Błąd pobierania zamówień", "Failed to fetch orders"));
         const payload = (await res.json()) as OrdersResponse;
         const fetchedOrders = payload.orders ?? [];
+        const etag = res.headers.get("ETag");
+        listEtagRef.current = etag ? { url, etag } : null;
         setOrders(fetchedOrders.sort((a, b) => b.orderNumber - a.orderNumber));
+        changeCursorRef.current = cursor;
         setTotalElements(payload.totalElements ?? fetchedOrders.length);
         setTotalPages(Math.max(payload.totalPages ?? 1, 1));
         const payloadPage = typeof payload.page === "number" ? payload.page : pageToLoad;
@@ -107,44 +144,159 @@ function EmployeeOrdersView() {
   );
 
   useEffect(() => {
+    ordersRef.current = orders;
+  }, [orders]);
+
+  const applyChangedOrders = useCallback(
+    (changed: OrderRecord[]) => {
+      const known = new Set(ordersRef.current.map(order => order.id));
+      const today = todayIso();
+      // nowe zamowienia dopisujemy tylko na pierwszej stronie (lista jest malejaco po numerze)
+      const fresh = changed.filter(order => !known.has(order.id) && page === 0 && order.orderDate === today);
+      const updated = new Map(changed.filter(order => known.has(order.id)).map(order => [order.id, order]));
+      // ta sama zmiana moze przyjsc kanalem i z odpowiedzi na zmiane statusu - starsza wersja nie nadpisuje nowszej
+      const newer = (current: OrderRecord, incoming: OrderRecord | undefined) =>
+        incoming && (incoming.version == null || current.version == null || incoming.version >= current.version)
+          ? incoming
+          : current;
+      setOrders(prev => {
+        const present = new Set(prev.map(order => order.id));
+        return [...prev.map(order => newer(order, updated.get(order.id))), ...fresh.filter(order => !present.has(order.id))]
+          .sort((a, b) => b.orderNumber - a.orderNumber);
+      });
+      if (fresh.length > 0) {
+        setTotalElements(prev => prev + fresh.length);
+      }
+    },
+    [page],
+  );
+
+  const fetchChanges = useCallback(async () => {
+    if (changeCursorRef.current === null) {
+      await fetchOrders({ targetPage: page });
+      return;
+    }
+    try {
+      let cursor = changeCursorRef.current;
+      const changed: OrderRecord[] = [];
+      for (;;) {
+        const res = await fetch(`${API_BASE_URL}/api/orders/changes?since=${cursor}&limit=${CHANGES_LIMIT}`, {
+          headers: authHeaders,
+        });
+        if (!res.ok) return;
+        const payload = (await res.json()) as ChangesResponse;
+        const batch = payload.orders ?? [];
+        changed.push(...batch);
+        cursor = payload.cursor;
+        if (batch.length < CHANGES_LIMIT) break;
+      }
+      changeCursorRef.current = cursor;
+      if (changed.length > 0) {
+        applyChangedOrders(changed);
+      }
+    } catch {
+      // kolejna proba przy nastepnym cyklu
+    }
+  }, [applyChangedOrders, authHeaders, fetchOrders, page]);
+
+  useEffect(() => {
+    changeCursorRef.current = null;
     fetchOrders({ showSpinner: true, targetPage: page });
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [page, authHeaders]);
+
+  const fetchChangesRef = useRef(fetchChanges);
+  const applyChangedOrdersRef = useRef(applyChangedOrders);
+  useEffect(() => {
+    fetchChangesRef.current = fetchChanges;
+    applyChangedOrdersRef.current = applyChangedOrders;
+  }, [applyChangedOrders, fetchChanges]);
+
+  useEffect(() => {
+    if (!auth.token) return;
+    return openOrdersSocket<OrderRecord>({
+      token: auth.token,
+      onSubscribed: () => {
+        setSocketLive(true);
+        // zmiany z czasu przed subskrypcja (albo przerwy w polaczeniu) doczytujemy od kursora
+        fetchChangesRef.current();
+      },
+      onOrders: changed => applyChangedOrdersRef.current(changed),
+      onUnavailable: () => setSocketLive(false),
+    });
+  }, [auth.token]);
+
+  useEffect(() => {
+    if (socketLive) return;
     const interval = window.setInterval(() => {
-      fetchOrders({ targetPage: page });
-    }, 10000);
+      fetchChanges();
+    }, CHANGES_POLL_MS);
     return () => window.clearInterval(interval);
-  }, [fetchOrders, page]);
+  }, [fetchChanges, socketLive]);
 
   const nextStatus = (status: Status) => {
     const idx = STATUS_FLOW.indexOf(status);
     return idx >= 0 && idx < STATUS_FLOW.length - 1 ? STATUS_FLOW[idx + 1] : null;
   };
 
+  // If-Match z wersja, ktora widzi pracownik - gdy inne stanowisko zmienilo zamowienie, backend zwroci 412
+  const versionHeader = (order: OrderRecord): Record<string, string> =>
+    order.version != null ? { "If-Match": `"${order.version}"` } : {};
+
+  // odpowiedz zawiera juz zaktualizowane zamowienia - podmieniamy je lokalnie zamiast pobierac cala liste
+  const applyStatusResponse = async (res: Response) => {
+    if (!res.ok) {
+      fetchOrders({ targetPage: page });
+      return;
+    }
+    const payload = (await res.json()) as OrderRecord | OrderRecord[];
+    const updated = new Map((Array.isArray(payload) ? payload : [payload]).map(order => [order.id, order]));
+    setOrders(prev => prev.map(order => updated.get(order.id) ?? order));
+  };
+
   const handleStatusChange = async (order: OrderRecord) => {
     const newStatus = nextStatus(order.status);
     if (!newStatus) return;
     setUpdating(order.id);
     try {
-      await fetch(`${API_BASE_URL}/api/orders/${order.id}/status`, {
+      const res = await fetch(`${API_BASE_URL}/api/orders/${order.id}/status`, {
         method: "PUT",
-        headers: { ...authHeaders, "Content-Type": "application/json" },
+        headers: { ...authHeaders, ...versionHeader(order), "Content-Type": "application/json" },
         body: JSON.stringify({ status: newStatus }),
       });
-      fetchOrders({ targetPage: page });
+      await applyStatusResponse(res);
     } finally {
       setUpdating(null);
     }
   };
 
+  const readyOrders = useMemo(() => orders.filter(order => order.status === "Gotowe"), [orders]);
+
+  const handleCompleteReady = async () => {
+    if (readyOrders.length === 0) return;
+    setBulkUpdating(true);
+    try {
+      const res = await fetch(`${API_BASE_URL}/api/orders/status`, {
+        method: "PUT",
+        headers: { ...authHeaders, "Content-Type": "application/json" },
+        body: JSON.stringify(readyOrders.map(order => ({ id: order.id, status: "Zrealizowane", version: order.version ?? null }))),
+      });
+      await applyStatusResponse(res);
+    } finally {
+      setBulkUpdating(false);
+    }
+  };
+
   const handleCancel = async (order: OrderRecord) => {
     if (!window.confirm(t("Czy na pewno anulować zamówienie?", "Cancel this order?"))) return;
     setUpdating(order.id);
     try {
-      await fetch(`${API_BASE_URL}/api/orders/${order.id}/status`, {
+      const res = await fetch(`${API_BASE_URL}/api/orders/${order.id}/status`, {
         method: "PUT",
-        headers: { ...authHeaders, "Content-Type": "application/json" },
+        headers: { ...authHeaders, ...versionHeader(order), "Content-Type": "application/json" },
         body: JSON.stringify({ status: "Anulowane" }),
       });
-      fetchOrders({ targetPage: page });
+      await applyStatusResponse(res);
     } finally {
       setUpdating(null);
     }
@@ -217,6 +369,11 @@ function EmployeeOrdersView() {
         <button className="manager-save-btn" onClick={() => fetchOrders({ showSpinner: true, targetPage: page })}>
           {t("Odśwież", "Refresh")}
         </button>
+        {activeTab === "todo" && (
+          <button className="manager-save-btn" onClick={handleCompleteReady} disabled={bulkUpdating || readyOrders.length === 0}>
+            {t("Wydaj wszystkie gotowe", "Complete all ready")} ({readyOrders.length})
+          </button>
+        )}
       </div>
       <div className="employee-tabs">
         {TABS.map(tab => (
@@ -1,4 +1,4 @@
-﻿import React, { useCallback, useEffect, useMemo, useState } from 'react';
+﻿import React, { useCallback, useEffect, useMemo, useRef, useState } from 'react';
 import './App.css';
 import ReactDatePicker from 'react-datepicker';
 import 'react-datepicker/dist/react-datepicker.css';
@@ -7,26 +7,30 @@ import { format } from 'date-fns';
 import { API_BASE_URL } from './config';
 import { useAuth } from './context/AuthContext';
 import { useLocale, useTranslate } from './context/LocaleContext';
+import { openOrdersSocket } from './orderSocket';
 
 const STATUS_OPTIONS = ['W realizacji', 'Gotowe', 'Zrealizowane', 'Anulowane'] as const;
 const TYPE_OPTIONS = ['na miejscu', 'na wynos'] as const;
 
 const PAGE_SIZE = 200;
 
+// stronicowanie kursorem: licznik przychodzi tylko dla includeTotal=true, kolejna strona zaczyna sie od nextCursor
 type OrdersResponse = {
   orders: OrderRecord[];
-  totalElements: number;
-  totalPages: number;
-  page: number;
+  totalElements?: number | null;
+  totalPages?: number | null;
   size: number;
+  nextCursor?: string | null;
 };
 
 type OrderRecord = {
   id: number;
   orderNumber: number;
+  orderDate?: string | null;
   createdAt: string | null;
   type: string;
   status: string;
+  version?: number | null;
   items: { id: number; name: string; nameEn?: string | null; quantity: number; price: number }[];
 };
 
@@ -64,7 +68,14 @@ const ManagerOrdersView: React.FC = () => {
   const [totalAvailable, setTotalAvailable] = useState(0);
   const [totalPages, setTotalPages] = useState(1);
   const [page, setPage] = useState(0);
+  const [hasNextPage, setHasNextPage] = useState(false);
+  // kursory kolejnych stron; strone n mozna otworzyc tylko przechodzac od n-1, wiec wpis jest zawsze dla biezacych filtrow
+  const pageCursorsRef = useRef<string[]>(['']);
   const [hasLoaded, setHasLoaded] = useState(false);
+  // ETag ostatnio wyswietlonej listy; wysylany tylko dla tego samego adresu, zeby 304 nie zostawilo danych innego filtra
+  const listEtagRef = useRef<{ url: string; etag: string } | null>(null);
+  // zmiany z kanalu WebSocket; lista odswiezana cyklicznie tylko gdy kanal jest niedostepny
+  const [socketLive, setSocketLive] = useState(false);
   const auth = useAuth();
   const { language } = useLocale();
   const t = useTranslate();
@@ -97,7 +108,8 @@ const ManagerOrdersView: React.FC = () => {
   }, [auth.token]);
 
   const fetchOrders = useCallback(async ({ showSpinner = false, targetPage }: { showSpinner?: boolean; targetPage?: number } = {}) => {
-    const pageToLoad = typeof targetPage === 'number' ? Math.max(targetPage, 0) : page;
+    const requestedPage = typeof targetPage === 'number' ? Math.max(targetPage, 0) : page;
+    const pageToLoad = pageCursorsRef.current[requestedPage] !== undefined ? requestedPage : 0;
     const shouldShowSpinner = showSpinner || !hasLoaded;
     if (shouldShowSpinner) {
       setLoading(true);
@@ -111,20 +123,39 @@ const ManagerOrdersView: React.FC = () => {
       if (filters.timeTo) params.append('timeTo', filters.timeTo);
       if (filters.status) params.append('status', filters.status);
       if (filters.type) params.append('type', filters.type);
-      params.append('page', String(pageToLoad));
+      params.append('cursor', pageCursorsRef.current[pageToLoad]);
       params.append('size', String(PAGE_SIZE));
+      // licznik (COUNT po calym zakresie) tylko dla pierwszej strony; dalsze strony korzystaja z zapamietanej sumy
+      if (pageToLoad === 0) params.append('includeTotal', 'true');
 
-      const res = await fetch(`${API_BASE_URL}/api/manager/orders?${params.toString()}`, {
-        headers: authHeaders,
-      });
+      const url = `${API_BASE_URL}/api/manager/orders?${params.toString()}`;
+      const headers: Record<string, string> = { ...authHeaders };
+      if (listEtagRef.current?.url === url) {
+        headers['If-None-Match'] = listEtagRef.current.etag;
+      }
+      const res = await fetch(url, { headers });
+      if (res.status === 304) {
+        setLastRefresh(Date.now());
+        setHasLoaded(true);
+        setError(null);
+        return;
+      }
       if (!res.ok) throw new Error(t('Błąd pobierania zamówień', 'Failed to fetch orders'));
       const payload = await res.json() as OrdersResponse;
       const fetchedOrders = payload.orders ?? [];
+      const etag = res.headers.get('ETag');
+      listEtagRef.current = etag ? { url, etag } : null;
       setOrders(fetchedOrders);
-      setTotalAvailable(payload.totalElements ?? fetchedOrders.length);
-      setTotalPages(Math.max(payload.totalPages ?? 1, 1));
-      if (typeof payload.page === 'number' && payload.page !== page) {
-        setPage(payload.page);
+      if (payload.nextCursor) {
+        pageCursorsRef.current[pageToLoad + 1] = payload.nextCursor;
+      }
+      setHasNextPage(Boolean(payload.nextCursor));
+      if (typeof payload.totalElements === 'number') {
+        setTotalAvailable(payload.totalElements);
+        setTotalPages(Math.max(payload.totalPages ?? 1, 1));
+      }
+      if (pageToLoad !== page) {
+        setPage(pageToLoad);
       }
       setLastRefresh(Date.now());
       setHasLoaded(true);
@@ -144,11 +175,58 @@ const ManagerOrdersView: React.FC = () => {
   }, [fetchOrders, hasLoaded, page]);
 
   useEffect(() => {
+    if (socketLive) return;
     const interval = window.setInterval(() => {
       fetchOrders({ targetPage: page });
     }, 15000);
     return () => window.clearInterval(interval);
-  }, [fetchOrders, page]);
+  }, [fetchOrders, page, socketLive]);
+
+  // zmienione zamowienia podmieniamy na liscie; nowe pasujace do filtra dat dopisujemy na poczatku pierwszej strony
+  const applyChangedOrders = useCallback((changed: OrderRecord[]) => {
+    const inDateRange = (order: OrderRecord) =>
+      (!filters.dateFrom || (order.orderDate ?? '') >= filters.dateFrom) &&
+      (!filters.dateTo || (order.orderDate ?? '') <= filters.dateTo);
+    setOrders(prev => {
+      const incoming = new Map(changed.map(order => [order.id, order]));
+      const present = new Set(prev.map(order => order.id));
+      const merged = prev
+        .map(order => {
+          const next = incoming.get(order.id);
+          return next && (next.version == null || order.version == null || next.version >= order.version) ? next : order;
+        })
+        .filter(order => !filters.status || order.status === filters.status);
+      const fresh = page === 0
+        ? changed.filter(order => !present.has(order.id) && inDateRange(order)
+          && (!filters.status || order.status === filters.status))
+        : [];
+      return [...fresh.reverse(), ...merged];
+    });
+    setLastRefresh(Date.now());
+  }, [filters.dateFrom, filters.dateTo, filters.status, page]);
+
+  const fetchOrdersRef = useRef(fetchOrders);
+  const applyChangedOrdersRef = useRef(applyChangedOrders);
+  useEffect(() => {
+    fetchOrdersRef.current = fetchOrders;
+    applyChangedOrdersRef.current = applyChangedOrders;
+  }, [applyChangedOrders, fetchOrders]);
+
+  useEffect(() => {
+    if (!auth.token) return;
+    return openOrdersSocket<OrderRecord>({
+      token: auth.token,
+      statuses: filters.status ? [filters.status] : [],
+      types: filters.type ? [filters.type] : [],
+      onSubscribed: () => {
+        setSocketLive(true);
+        // lista pobrana ponownie po subskrypcji - nie gubimy zmian sprzed polaczenia (zwykle 304)
+        fetchOrdersRef.current();
+      },
+      onOrders: changed => applyChangedOrdersRef.current(changed),
+      onUnavailable: () => setSocketLive(false),
+    });
+  }, [auth.token, filters.status, filters.type]);
 
   const handleFilterChange = (e: React.ChangeEvent<HTMLInputElement | HTMLSelectElement>) => {
     const { name, value } = e.target;
@@ -215,7 +293,7 @@ const ManagerOrdersView: React.FC = () => {
     ? new Date(lastRefresh).toLocaleTimeString('pl-PL', { hour: '2-digit', minute: '2-digit' })
     : '---';
   const canGoPrev = page > 0;
-  const canGoNext = page + 1 < totalPages;
+  const canGoNext = hasNextPage;
   const pageLabel = totalPages > 0 ? page + 1 : 0;
 
   return (
@@ -268,18 +346,11 @@ const ManagerOrdersView: React.FC = () => {
         </span>
         <button
           className="manager-save-btn"
-          onClick={() => setPage(prev => Math.min(prev + 1, Math.max(totalPages - 1, 0)))}
+          onClick={() => setPage(prev => prev + 1)}
           disabled={!canGoNext}
         >
           {t('Następna', 'Next')} {'>'}
         </button>
-        <button
-          className="manager-save-btn"
-          onClick={() => setPage(Math.max(totalPages - 1, 0))}
-          disabled={!canGoNext}
-        >
-          {t('Ostatnia', 'Last')} {'>>'}
-        </button>
       </div>
       <p className="manager-refresh-info" style={{ marginTop: -8, marginBottom: 16 }}>
         {t('Łącznie', 'Total')} {totalAvailable} {t('zamówień', 'orders')} — {t('strona', 'page')} {pageLabel} {t('z', 'of')} {totalPages}
@@ -10,6 +10,7 @@ import { useLocale, useTranslate } from './context/LocaleContext';
 const STATUS_OPTIONS = ['W realizacji', 'Gotowe', 'Zrealizowane', 'Anulowane'] as const;
 const TYPE_OPTIONS = ['na miejscu', 'na wynos'] as const;
 const PREVIEW_PAGE_SIZE = 500;
+const REPORT_POLL_INTERVAL_MS = 1000;
 type SortOption = 'createdAt' | 'duration';
 
 type OrderPreview = {
@@ -22,6 +23,23 @@ type OrderPreview = {
   items: { id: number; name: string; nameEn?: string | null; quantity: number; price: number }[];
 };
 
+type ReportJobRequest = {
+  reportType: 'orders' | 'stats';
+  format: 'pdf' | 'csv';
+  dateFrom: string | null;
+  dateTo: string | null;
+  timeFrom: string | null;
+  timeTo: string | null;
+};
+
+type ReportJobStatus = {
+  id: string;
+  status: 'queued' | 'running' | 'done' | 'failed';
+  progress: number;
+  downloadUrl: string | null;
+  message: string | null;
+};
+
 type OrdersResponse = {
   orders: OrderPreview[];
   totalElements: number;
@@ -108,6 +126,7 @@ const ManagerReportsView: React.FC = () => {
   const [timeTo, setTimeTo] = useState('');
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
+  const [reportProgress, setReportProgress] = useState<number | null>(null);
 
   const [previewLoading, setPreviewLoading] = useState(false);
   const [previewError, setPreviewError] = useState<string | null>(null);
@@ -183,24 +202,45 @@ const ManagerReportsView: React.FC = () => {
     }
   }, [dateFrom, dateTo]);
 
-  const buildParams = (type: 'orders' | 'stats', format: 'pdf' | 'csv') => {
-    const params = new URLSearchParams();
-    if (dateFrom) params.append('dateFrom', dateFrom.toISOString().slice(0, 10));
-    if (dateTo) params.append('dateTo', dateTo.toISOString().slice(0, 10));
-    const serverTimeFrom = toServerTime(timeFrom);
-    const serverTimeTo = toServerTime(timeTo);
-    if (serverTimeFrom) params.append('timeFrom', serverTimeFrom);
-    if (serverTimeTo) params.append('timeTo', serverTimeTo);
-    params.append('reportType', type);
-    params.append('format', format);
-    return params;
-  };
-
+  const buildJobRequest = (type: 'orders' | 'stats', format: 'pdf' | 'csv'): ReportJobRequest => ({
+    reportType: type,
+    format,
+    dateFrom: dateFrom ? dateFrom.toISOString().slice(0, 10) : null,
+    dateTo: dateTo ? dateTo.toISOString().slice(0, 10) : null,
+    timeFrom: toServerTime(timeFrom),
+    timeTo: toServerTime(timeTo),
+  });
+
+  // raport generowany w tle: zlecenie, odpytywanie statusu i pobranie gotowego pliku; ponowne klikniecie
+  // z tymi samymi filtrami podlacza sie do zadania w toku zamiast uruchamiac kolejne
   const downloadReport = async (reportType: 'orders' | 'stats', format: 'pdf' | 'csv' = 'pdf') => {
     setLoading(true);
     setError(null);
+    setReportProgress(0);
     try {
-      const res = await fetch(`${API_BASE_URL}/api/manager/orders/report?${buildParams(reportType, format).toString()}`, {
+      const submitRes = await fetch(`${API_BASE_URL}/api/manager/orders/report-jobs`, {
+        method: 'POST',
+        headers: { ...authHeaders, 'Content-Type': 'application/json' },
+        body: JSON.stringify(buildJobRequest(reportType, format)),
+      });
+      if (!submitRes.ok) {
+        await parseErrorResponse(submitRes, t('Błąd zlecenia raportu.', 'Failed to request report.'));
+      }
+      let job = (await submitRes.json()) as ReportJobStatus;
+      while (job.status === 'queued' || job.status === 'running') {
+        setReportProgress(job.progress);
+        await new Promise(resolve => window.setTimeout(resolve, REPORT_POLL_INTERVAL_MS));
+        const statusRes = await fetch(`${API_BASE_URL}/api/manager/orders/report-jobs/${job.id}`, { headers: authHeaders });
+        if (!statusRes.ok) {
+          await parseErrorResponse(statusRes, t('Błąd pobierania statusu raportu.', 'Failed to fetch report status.'));
+        }
+        job = (await statusRes.json()) as ReportJobStatus;
+      }
+      if (job.status === 'failed' || !job.downloadUrl) {
+        throw new Error(job.message ?? t('Błąd generowania raportu.', 'Failed to generate report.'));
+      }
+      setReportProgress(100);
+      const res = await fetch(`${API_BASE_URL}${job.downloadUrl}`, {
         headers: authHeaders,
       });
       if (!res.ok) {
@@ -223,6 +263,7 @@ const ManagerReportsView: React.FC = () => {
       setError(message);
     } finally {
       setLoading(false);
+      setReportProgress(null);
     }
   };
 
@@ -389,6 +430,9 @@ const ManagerReportsView: React.FC = () => {
         <button className="manager-save-btn" disabled={loading} onClick={() => downloadReport('stats', 'csv')}>
           {t('Pobierz raport statystyk (CSV)', 'Download stats report (CSV)')}
         </button>
+        {reportProgress !== null && (
+          <span style={{ alignSelf: 'center' }}>{t('Generowanie raportu:', 'Generating report:')} {reportProgress}%</span>
+        )}
         {error && <span className="manager-error" style={{ alignSelf: 'center' }}>{error}</span>}
       </div>
 
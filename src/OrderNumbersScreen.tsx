@@ -14,6 +14,26 @@ interface Order {
 const isTrackedStatus = (status: string): status is typeof STATUS_DISPLAY[number] =>
   STATUS_DISPLAY.some(current => current === status);
 
+const POLL_INTERVAL_MS = 5000;
+// po odrzuceniu strumienia (np. limit polaczen - 503) ekran odpytuje /active i co jakis czas probuje wrocic do strumienia
+const STREAM_RETRY_MS = 30000;
+
+const parseOrders = (raw: string): Order[] => {
+  const data = JSON.parse(raw) as Order[];
+  return Array.isArray(data) ? data : [];
+};
+
+// zmienione zamowienia ze strumienia: aktualizacja na miejscu, nowe na koniec, inne statusy znikaja z ekranu
+const applyOrderChanges = (current: Order[], changed: Order[]): Order[] => {
+  const byId = new Map(changed.map(order => [order.id, order]));
+  const known = new Set(current.map(order => order.id));
+  const updated = current
+    .map(order => byId.get(order.id) ?? order)
+    .filter(order => isTrackedStatus(order.status));
+  const added = changed.filter(order => !known.has(order.id) && isTrackedStatus(order.status));
+  return [...updated, ...added];
+};
+
 function OrderNumbersScreen() {
   const [orders, setOrders] = useState<Order[]>([]);
   const [loading, setLoading] = useState(true);
@@ -64,12 +84,69 @@ function OrderNumbersScreen() {
     }
   }, [hasLoaded, t]);
 
+  const fetchOrdersRef = useRef(fetchOrders);
   useEffect(() => {
-    fetchOrders(true);
-    const interval = window.setInterval(() => fetchOrders(), 5000);
-    return () => window.clearInterval(interval);
+    fetchOrdersRef.current = fetchOrders;
   }, [fetchOrders]);
 
+  useEffect(() => {
+    let source: EventSource | null = null;
+    let pollInterval: number | undefined;
+    let retryTimeout: number | undefined;
+    let disposed = false;
+
+    const startPolling = () => {
+      if (pollInterval === undefined) {
+        fetchOrdersRef.current();
+        pollInterval = window.setInterval(() => fetchOrdersRef.current(), POLL_INTERVAL_MS);
+      }
+    };
+    const stopPolling = () => {
+      if (pollInterval !== undefined) {
+        window.clearInterval(pollInterval);
+        pollInterval = undefined;
+      }
+    };
+
+    const openStream = () => {
+      if (disposed) return;
+      source = new EventSource(`${API_BASE_URL}/api/public/orders/stream`);
+      source.addEventListener('snapshot', event => {
+        stopPolling();
+        setOrders(parseOrders((event as MessageEvent<string>).data).filter(order => isTrackedStatus(order.status)));
+        setHasLoaded(true);
+        setLoading(false);
+        setError(null);
+      });
+      source.addEventListener('orders', event => {
+        const changed = parseOrders((event as MessageEvent<string>).data);
+        setOrders(prev => applyOrderChanges(prev, changed));
+      });
+      source.onerror = () => {
+        // CONNECTING = przegladarka sama wznowi polaczenie z Last-Event-ID; CLOSED = serwer odrzucil strumien
+        if (source?.readyState === EventSource.CLOSED) {
+          source.close();
+          source = null;
+          startPolling();
+          retryTimeout = window.setTimeout(openStream, STREAM_RETRY_MS);
+        }
+      };
+    };
+
+    if (typeof EventSource === 'undefined') {
+      fetchOrdersRef.current(true);
+      startPolling();
+    } else {
+      openStream();
+    }
+    return () => {
+      disposed = true;
+      source?.close();
+      stopPolling();
+      window.clearTimeout(retryTimeout);
+    };
+  }, []);
+
   const statusHeading = (status: typeof STATUS_DISPLAY[number]) => (
     status === 'W realizacji' ? t('W realizacji', 'In progress') : t('Gotowe', 'Ready')
   );
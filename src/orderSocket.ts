@@ -0,0 +1,95 @@
+import { API_BASE_URL } from './config';
+
+// kanal /api/ws/orders: po subskrypcji serwer wysyla pelne zamowienia przy kazdej zmianie pasujacej do filtra
+export type OrdersSocketOptions<T> = {
+  token: string;
+  statuses?: string[];
+  types?: string[];
+  onSubscribed: () => void;
+  onOrders: (orders: T[]) => void;
+  onUnavailable: () => void;
+};
+
+const RECONNECT_MS = 5000;
+// 1013 = limit polaczen stanowisk; wtedy dluzej zostajemy przy odpytywaniu
+const OVERLOAD_RECONNECT_MS = 30000;
+const SERVICE_OVERLOAD = 1013;
+
+export const ordersSocketUrl = (ticket: string) =>
+  `${API_BASE_URL.replace(/^http/, 'ws')}/api/ws/orders?ticket=${encodeURIComponent(ticket)}`;
+
+// JWT nie trafia do adresu WebSocket - przed kazdym polaczeniem pobieramy jednorazowy, krotko wazny bilet
+async function fetchSocketTicket(token: string): Promise<string> {
+  const response = await fetch(`${API_BASE_URL}/api/auth/socket-ticket`, {
+    method: 'POST',
+    headers: { Authorization: `Bearer ${token}` },
+  });
+  if (!response.ok) {
+    throw new Error(`Nie udalo sie pobrac biletu WebSocket (${response.status})`);
+  }
+  const body = (await response.json()) as { ticket?: string };
+  if (!body.ticket) {
+    throw new Error('Brak biletu WebSocket w odpowiedzi');
+  }
+  return body.ticket;
+}
+
+// zwraca funkcje zamykajaca; po zerwaniu polaczenia wywoluje onUnavailable i sama probuje polaczyc sie ponownie
+export function openOrdersSocket<T>(options: OrdersSocketOptions<T>): () => void {
+  let socket: WebSocket | null = null;
+  let reconnectTimeout: number | undefined;
+  let disposed = false;
+
+  const scheduleReconnect = (delay: number) => {
+    reconnectTimeout = window.setTimeout(connect, delay);
+  };
+
+  const open = (ticket: string) => {
+    if (disposed) return;
+    socket = new WebSocket(ordersSocketUrl(ticket));
+    socket.onopen = () => {
+      socket?.send(JSON.stringify({ type: 'subscribe', statuses: options.statuses ?? [], types: options.types ?? [] }));
+    };
+    socket.onmessage = event => {
+      try {
+        const message = JSON.parse(event.data as string) as { type?: string; orders?: T[] };
+        if (message.type === 'subscribed') {
+          options.onSubscribed();
+        } else if (message.type === 'orders' && Array.isArray(message.orders)) {
+          options.onOrders(message.orders);
+        }
+      } catch {
+        // nieczytelna wiadomosc - kolejna zmiana i tak przyjdzie w calosci
+      }
+    };
+    // 1008 = wygasl token; kolejna proba pobrania biletu konczy sie 401 i widok zostaje przy odpytywaniu
+    socket.onclose = event => {
+      socket = null;
+      if (disposed) return;
+      options.onUnavailable();
+      scheduleReconnect(event.code === SERVICE_OVERLOAD ? OVERLOAD_RECONNECT_MS : RECONNECT_MS);
+    };
+  };
+
+  const connect = () => {
+    if (disposed) return;
+    fetchSocketTicket(options.token)
+      .then(open)
+      .catch(() => {
+        if (disposed) return;
+        options.onUnavailable();
+        scheduleReconnect(RECONNECT_MS);
+      });
+  };
+
+  if (typeof WebSocket === 'undefined') {
+    options.onUnavailable();
+  } else {
+    connect();
+  }
+  return () => {
+    disposed = true;
+    window.clearTimeout(reconnectTimeout);
+    socket?.close();
+  };
+}
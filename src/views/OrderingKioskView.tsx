@@ -51,6 +51,13 @@ function FadeTransition({ children, triggerKey }: { children: React.ReactNode; t
   return <div ref={ref} className="fade-enter">{children}</div>;
 }
 
+function createIdempotencyKey() {
+  if (typeof crypto !== 'undefined' && typeof crypto.randomUUID === 'function') {
+    return crypto.randomUUID();
+  }
+  return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+}
+
 function formatImageUrl(path?: string | null) {
   if (!path) return '';
   return path.startsWith('/uploads/') ? `${API_BASE_URL}${path}` : path;
@@ -67,6 +74,8 @@ function OrderingKioskView() {
   const [orderType, setOrderType] = useState<'na miejscu' | 'na wynos'>('na miejscu');
   const [orderSent, setOrderSent] = useState<{ number: number } | null>(null);
   const [sendingOrder, setSendingOrder] = useState(false);
+  // ten sam klucz dla ponownych prob wyslania niezmienionego koszyka, zeby nie dublowac zamowien
+  const idempotencyKeyRef = useRef<string | null>(null);
   const t = useTranslate();
   const { language } = useLocale();
 
@@ -82,6 +91,10 @@ function OrderingKioskView() {
       .catch(() => setMenu([]));
   }, []);
 
+  useEffect(() => {
+    idempotencyKeyRef.current = null;
+  }, [order, orderType]);
+
   const addToOrder = (item: MenuItem) => {
     setOrder(prev => {
       const found = prev.find(o => o.id === item.id);
@@ -118,9 +131,12 @@ function OrderingKioskView() {
           price: item.price,
         })),
       };
+      if (!idempotencyKeyRef.current) {
+        idempotencyKeyRef.current = createIdempotencyKey();
+      }
       const res = await fetch(`${API_BASE_URL}/api/orders`, {
         method: 'POST',
-        headers: { 'Content-Type': 'application/json' },
+        headers: { 'Content-Type': 'application/json', 'Idempotency-Key': idempotencyKeyRef.current },
         body: JSON.stringify(payload),
       });
       if (res.ok) {
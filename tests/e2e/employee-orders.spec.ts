@@ -1,4 +1,4 @@
-import { test, expect } from '@playwright/test';
+import { test, expect, type WebSocketRoute } from '@playwright/test';
 
 test.describe('Employee orders board', () => {
   test('shows orders scheduled for today', async ({ page }) => {
@@ -31,6 +31,11 @@ test.describe('Employee orders board', () => {
       await route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(json) });
     });
 
+    await page.route(/.*\/api\/orders\/changes.*/, async route => {
+      const json = { orders: [], cursor: 42 };
+      await route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(json) });
+    });
+
     await page.goto('/login?next=/employee');
   await page.getByLabel('Login').fill('employee');
   await page.getByLabel(/Has.*/i).fill('employee123');
@@ -45,4 +50,61 @@ test.describe('Employee orders board', () => {
     await expect(page.getByText('150')).toBeVisible();
     await expect(page.getByText(/Burger/)).toBeVisible();
   });
+
+  test('applies orders pushed over the kitchen WebSocket channel', async ({ page }) => {
+    const expiresAt = Date.now() + 60 * 60 * 1000;
+    const now = new Date();
+    const pad = (value: number) => String(value).padStart(2, '0');
+    const today = `${now.getFullYear()}-${pad(now.getMonth() + 1)}-${pad(now.getDate())}`;
+    const stations: WebSocketRoute[] = [];
+
+    await page.route('**/api/auth/login', async route => {
+      const json = { token: 'employee-token', role: 'employee', expiresAt };
+      await route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(json) });
+    });
+    await page.route(/.*\/api\/orders.*/, async route => {
+      const json = { orders: [], totalElements: 0, totalPages: 1, page: 0, size: 100 };
+      await route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(json) });
+    });
+    await page.route(/.*\/api\/orders\/changes.*/, async route => {
+      await route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify({ orders: [], cursor: 7 }) });
+    });
+    await page.route('**/api/auth/socket-ticket', async route => {
+      const json = { ticket: 'station-ticket', expiresAt: Date.now() + 30 * 1000 };
+      await route.fulfill({ status: 200, contentType: 'application/json', body: JSON.stringify(json) });
+    });
+    await page.routeWebSocket(/\/api\/ws\/orders\?ticket=station-ticket/, ws => {
+      ws.onMessage(message => {
+        if (JSON.parse(String(message)).type === 'subscribe') {
+          stations.push(ws);
+          ws.send(JSON.stringify({ type: 'subscribed', statuses: [], types: [] }));
+        }
+      });
+    });
+
+    await page.goto('/login?next=/employee');
+    await page.getByLabel('Login').fill('employee');
+    await page.getByLabel(/Has.*/i).fill('employee123');
+    await Promise.all([
+      page.waitForResponse('**/api/auth/login'),
+      page.getByRole('button', { name: /Zaloguj/i }).click(),
+    ]);
+    await page.waitForURL('**/employee');
+    await expect(page.getByRole('button', { name: /Do zrealizowania/i })).toBeVisible();
+    await expect.poll(() => stations.length).toBeGreaterThan(0);
+
+    const pushed = {
+      id: 21,
+      orderNumber: 160,
+      orderDate: today,
+      createdAt: `${today}T12:45:00`,
+      type: 'na wynos',
+      status: 'W realizacji',
+      version: 0,
+      items: [{ id: 3, name: 'Frytki', quantity: 2, price: 9.0 }],
+    };
+    stations[0].send(JSON.stringify({ type: 'orders', orders: [pushed] }));
+    await expect(page.getByText('160')).toBeVisible();
+    await expect(page.getByText(/Frytki/)).toBeVisible();
+  });
 });
@@ -1,7 +1,32 @@
 import { test, expect } from '@playwright/test';
 
 test.describe('Public order screen', () => {
-  test('displays active orders returned by API', async ({ page }) => {
+  test('displays active orders pushed by the event stream', async ({ page }) => {
+    await page.route('**/api/public/orders/stream', async route => {
+      const snapshot = [
+        { id: 1, orderNumber: 45, status: 'W realizacji' },
+        { id: 2, orderNumber: 46, status: 'Gotowe' },
+      ];
+      const changes = [
+        { id: 2, orderNumber: 46, status: 'Zrealizowane' },
+        { id: 3, orderNumber: 47, status: 'W realizacji' },
+      ];
+      const body = `id: a-0\nevent: snapshot\ndata: ${JSON.stringify(snapshot)}\n\n`
+        + `id: a-1\nevent: orders\ndata: ${JSON.stringify(changes)}\n\n`;
+      await route.fulfill({ status: 200, contentType: 'text/event-stream', body });
+    });
+
+    await page.goto('/screen');
+
+    await expect(page.getByText('45')).toBeVisible();
+    await expect(page.getByText('47')).toBeVisible();
+    await expect(page.getByText('46')).toHaveCount(0);
+  });
+
+  test('falls back to polling when the stream is rejected', async ({ page }) => {
+    await page.route('**/api/public/orders/stream', async route => {
+      await route.fulfill({ status: 503, headers: { 'Retry-After': '30' }, body: '' });
+    });
     await page.route('**/api/public/orders/active', async route => {
       const json = [
         { id: 1, orderNumber: 45, status: 'W realizacji' },